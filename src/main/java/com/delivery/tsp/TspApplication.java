@@ -3,19 +3,20 @@ package com.delivery.tsp;
 import com.delivery.tsp.controller.DeliveryPointController;
 import com.delivery.tsp.dto.CourierDto;
 import com.delivery.tsp.dto.CourierJson;
+import com.delivery.tsp.utils.CourierConverter;
+import com.delivery.tsp.utils.SolveBudget;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalTime;
-import java.util.concurrent.TimeUnit;
 
 
 
@@ -23,9 +24,21 @@ import java.util.concurrent.TimeUnit;
 public class TspApplication implements CommandLineRunner {
 
 	private DeliveryPointController deliveryPointController;
-
-	public TspApplication(DeliveryPointController deliveryPointController) {
+	private long solveTimeLimitMs;
+	private long solveMaxIterations;
+	private double solveGapTolerance;
+	private boolean httpEnabled;
+
+	public TspApplication(DeliveryPointController deliveryPointController
+			, @Value("${tsp.solve.time-limit-ms:0}") long solveTimeLimitMs
+			, @Value("${tsp.solve.max-iterations:0}") long solveMaxIterations
+			, @Value("${tsp.solve.gap-tolerance:-1}") double solveGapTolerance
+			, @Value("${tsp.http.enabled:false}") boolean httpEnabled) {
 		this.deliveryPointController = deliveryPointController;
+		this.solveTimeLimitMs = solveTimeLimitMs;
+		this.solveMaxIterations = solveMaxIterations;
+		this.solveGapTolerance = solveGapTolerance;
+		this.httpEnabled = httpEnabled;
 	}
 
 	private static Logger log = LoggerFactory
@@ -40,6 +53,11 @@ public class TspApplication implements CommandLineRunner {
 
 	@Override
 	public void run(String... args) throws Exception {
+		if(httpEnabled){
+			log.info(">>>HTTP route service mode, POST courier json to /route");
+			return;
+		}
+
 		String fileName=null;
 		if(args.length>0){
 			log.info(">>>command line runner ..."+ args[0]);
@@ -61,72 +79,21 @@ public class TspApplication implements CommandLineRunner {
 			//courier = mapper.readValue(inputStream,typeReference);
 			courierJson = mapper.readValue(inputStream,CourierJson.class);
 
-			validateCourierSpeedJson(courierJson);
+			CourierConverter.validateCourierSpeedJson(courierJson);
 
 			//userService.save(users);
 			System.out.println("from courier.json: " + courierJson);
-			courierDto=convertCourierJsonToCourierDto(courierJson);
+			courierDto=CourierConverter.convertCourierJsonToCourierDto(courierJson);
 			System.out.println("courierDto: " +courierJson);
 			//System.out.println("Users Saved!");
 		} catch (IOException e){
 			System.out.println("Unable courier: " + e.getMessage());
 		}
 
-		String rout = deliveryPointController.findRout(courierDto);
+		SolveBudget solveBudget = SolveBudget.of(solveTimeLimitMs, solveMaxIterations, solveGapTolerance, null);
+		String rout = deliveryPointController.findRout(courierDto, solveBudget);
 		System.out.println( rout);
 
 	}
 
-	private static void validateCourierSpeedJson(CourierJson courierJson){
-		int courierSpeed=courierJson.getSpeed();
-
-		if(courierSpeed<=0){
-			throw new RuntimeException("Courier speed must be >0");
-		}
-	}
-
-
-	private static CourierDto convertCourierJsonToCourierDto(CourierJson courierJson){
-
-		CourierDto courierDto=new CourierDto();
-		courierDto.setBeginWorkDay(LocalTime.of(
-				getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.HOURS)
-				,getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.MINUTES)
-				,getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.SECONDS)));
-
-		courierDto.setEndWorkDay(LocalTime.of(
-				getSplitTime(courierJson.getEndWorkDay(),TimeUnit.HOURS)
-				,getSplitTime(courierJson.getEndWorkDay(),TimeUnit.MINUTES)
-				,getSplitTime(courierJson.getEndWorkDay(),TimeUnit.SECONDS)));
-
-		courierDto.setSpendTime(courierJson.getSpendTime());
-		courierDto.setSpeed(courierJson.getSpeed());
-		courierDto.setLotitude(courierJson.getLotitude());
-		courierDto.setLongitude(courierJson.getLongitude());
-
-		return courierDto;
-	}
-
-	private static int getSplitTime(String strDate,TimeUnit timeUnit ){
-
-		String[] split = strDate.split(":");
-
-		int[] time=new int[3];
-		int hour=Integer.valueOf(split[0]);
-		int minute=Integer.valueOf(split[1]);
-		int second=Integer.valueOf(split[2]);
-
-
-		if(timeUnit==TimeUnit.HOURS)
-			return hour;
-		else if(timeUnit==TimeUnit.MINUTES)
-			return minute;
-		else if (timeUnit==TimeUnit.SECONDS)
-			return second;
-		else
-			throw new IllegalArgumentException("Wronge time part");
-
-
-	}
-
 }
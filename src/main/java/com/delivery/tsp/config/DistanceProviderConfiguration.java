@@ -0,0 +1,31 @@
+package com.delivery.tsp.config;
+
+import com.delivery.tsp.utils.DistanceProvider;
+import com.delivery.tsp.utils.HaversineDistanceProvider;
+import com.delivery.tsp.utils.RoadNetwork;
+import com.delivery.tsp.utils.RoadNetworkDistanceProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+//tsp.distance.provider=haversine (default) or road with tsp.distance.road-graph-file
+@Configuration
+public class DistanceProviderConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "tsp.distance.provider", havingValue = HaversineDistanceProvider.NAME, matchIfMissing = true)
+    public DistanceProvider haversineDistanceProvider() {
+        return new HaversineDistanceProvider();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tsp.distance.provider", havingValue = RoadNetworkDistanceProvider.NAME)
+    public DistanceProvider roadNetworkDistanceProvider(
+            @Value("${tsp.distance.road-graph-file}") String roadGraphFile) throws IOException {
+        return new RoadNetworkDistanceProvider(RoadNetwork.load(Paths.get(roadGraphFile)));
+    }
+}
@@ -0,0 +1,16 @@
+package com.delivery.tsp.config;
+
+import com.delivery.tsp.utils.SpeedProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//tsp.speed.profile=07:00-10:00=0.6,16:30-19:00=0.5, empty = constant courier speed
+@Configuration
+public class SpeedProfileConfiguration {
+
+    @Bean
+    public SpeedProfile speedProfile(@Value("${tsp.speed.profile:}") String speedProfile) {
+        return SpeedProfile.parse(speedProfile);
+    }
+}
@@ -1,12 +1,16 @@
 package com.delivery.tsp.controller;
 
 import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteResult;
 import com.delivery.tsp.model.DeliveryPoint;
 
 import com.delivery.tsp.service.DeliveryPointService;
 import com.delivery.tsp.utils.Distance;
+import com.delivery.tsp.utils.SolveBudget;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
+
 @Controller
 public class DeliveryPointController {
 
@@ -21,4 +25,16 @@ public class DeliveryPointController {
         return deliveryPointService.getMinPath(courierDto);
 
     }
+
+    public String findRout(CourierDto courierDto, SolveBudget solveBudget){
+
+        return deliveryPointService.getMinPath(courierDto, solveBudget);
+
+    }
+
+    public List<RouteResult> findAlternatives(CourierDto courierDto, int k, SolveBudget solveBudget){
+
+        return deliveryPointService.solveAlternatives(courierDto, k, solveBudget);
+
+    }
 }
@@ -0,0 +1,103 @@
+package com.delivery.tsp.controller;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.CourierJson;
+import com.delivery.tsp.dto.RouteResult;
+import com.delivery.tsp.service.RouteSolveService;
+import com.delivery.tsp.service.SolverSaturatedException;
+import com.delivery.tsp.service.impl.RouteResultCache;
+import com.delivery.tsp.utils.CourierConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@ConditionalOnProperty(name = "tsp.http.enabled", havingValue = "true")
+public class RouteHttpController {
+
+    private RouteSolveService routeSolveService;
+    private RouteResultCache routeResultCache;
+    private long defaultTimeLimitMs;
+    private int maxAlternatives;
+
+    public RouteHttpController(RouteSolveService routeSolveService
+            , RouteResultCache routeResultCache
+            , @Value("${tsp.http.default-time-limit-ms:10000}") long defaultTimeLimitMs
+            , @Value("${tsp.http.max-alternatives:10}") int maxAlternatives) {
+        this.routeSolveService = routeSolveService;
+        this.routeResultCache = routeResultCache;
+        this.defaultTimeLimitMs = defaultTimeLimitMs;
+        this.maxAlternatives = maxAlternatives;
+    }
+
+    //the solve runs on the solver pool, the servlet thread is released right away
+    @PostMapping("/route")
+    public CompletableFuture<RouteResult> findRout(@RequestBody CourierJson courierJson
+            , @RequestParam(name = "timeLimitMs", required = false) Long timeLimitMs){
+
+        CourierConverter.validateCourierSpeedJson(courierJson);
+        CourierDto courierDto = CourierConverter.convertCourierJsonToCourierDto(courierJson);
+
+        return routeSolveService.submit(courierDto, timeLimitMs(timeLimitMs));
+    }
+
+    @PostMapping("/route/alternatives")
+    public CompletableFuture<List<RouteResult>> findAlternatives(@RequestBody CourierJson courierJson
+            , @RequestParam(name = "k", defaultValue = "3") int k
+            , @RequestParam(name = "timeLimitMs", required = false) Long timeLimitMs){
+
+        if (k <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "k must be positive");
+        }
+        CourierConverter.validateCourierSpeedJson(courierJson);
+        CourierDto courierDto = CourierConverter.convertCourierJsonToCourierDto(courierJson);
+
+        //more alternatives than the cap are not kept, whatever the request asks for
+        return routeSolveService.submitAlternatives(courierDto
+                , Math.min(k, maxAlternatives)
+                , timeLimitMs(timeLimitMs));
+    }
+
+    //0 would be an unlimited solve, a request always runs with a latency cap
+    private long timeLimitMs(Long timeLimitMs){
+        if (timeLimitMs == null) {
+            return defaultTimeLimitMs;
+        }
+        if (timeLimitMs <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "timeLimitMs must be positive");
+        }
+        return timeLimitMs;
+    }
+
+    @GetMapping("/route/cache")
+    public Map<String, Object> cacheStats(){
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", routeResultCache.size());
+        stats.put("hits", routeResultCache.getHits());
+        stats.put("misses", routeResultCache.getMisses());
+        stats.put("hitRatio", routeResultCache.getHitRatio());
+        stats.put("inFlight", routeSolveService.getInFlight());
+        return stats;
+    }
+
+    @ExceptionHandler(SolverSaturatedException.class)
+    public ResponseEntity<String> saturated(SolverSaturatedException e){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+package com.delivery.tsp.dto;
+
+import java.util.Arrays;
+
+//stop order of one route as graph indexes (1..n, depot 0 left out)
+//plus the values it is ranked by, two bytes per stop
+public class CompactRoute {
+
+    private final short[] stops;
+    private final int distance;
+    private final int timeWait;
+
+    public CompactRoute(short[] stops, int distance, int timeWait) {
+        this.stops = stops;
+        this.distance = distance;
+        this.timeWait = timeWait;
+    }
+
+    public short[] getStops() {
+        return stops;
+    }
+
+    public int[] toStops() {
+        int[] result = new int[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            result[i] = stops[i];
+        }
+        return result;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public int getTimeWait() {
+        return timeWait;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactRoute{" +
+                "stops=" + Arrays.toString(stops) +
+                ", distance=" + distance +
+                ", timeWait=" + timeWait +
+                '}';
+    }
+}
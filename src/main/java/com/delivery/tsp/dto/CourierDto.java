@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.time.LocalTime;
 import java.util.Arrays;
+import java.util.Objects;
 
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
@@ -28,6 +29,8 @@ public class CourierDto {
     private int speed;
     private double lotitude;
     private double longitude;
+    //optional, routes are remembered per courier and depot (RouteHistory)
+    private String courierId;
 
     public CourierDto() {
     }
@@ -95,6 +98,35 @@ public class CourierDto {
         this.longitude = longitude;
     }
 
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public void setCourierId(String courierId) {
+        this.courierId = courierId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CourierDto that = (CourierDto) o;
+        return speed == that.speed &&
+                Double.compare(that.lotitude, lotitude) == 0 &&
+                Double.compare(that.longitude, longitude) == 0 &&
+                Objects.equals(beginWorkDay, that.beginWorkDay) &&
+                Objects.equals(endWorkDay, that.endWorkDay) &&
+                Arrays.equals(spendTime, that.spendTime) &&
+                Objects.equals(courierId, that.courierId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(beginWorkDay, endWorkDay, speed, lotitude, longitude, courierId);
+        result = 31 * result + Arrays.hashCode(spendTime);
+        return result;
+    }
+
     @Override
     public String toString() {
         return "CourierDto{" +
@@ -104,6 +136,7 @@ public class CourierDto {
                 ", speed=" + speed +
                 ", lotitude=" + lotitude +
                 ", longitude=" + longitude +
+                ", courierId=" + courierId +
                 '}';
     }
 }
@@ -9,6 +9,8 @@ public class CourierJson {
     private int speed;
     private double lotitude;
     private double longitude;
+    //optional, routes are remembered per courier and depot (RouteHistory)
+    private String courierId;
 
     public CourierJson() {
     }
@@ -76,6 +78,14 @@ public class CourierJson {
         this.longitude = longitude;
     }
 
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public void setCourierId(String courierId) {
+        this.courierId = courierId;
+    }
+
     @Override
     public String toString() {
         return "CourierJson{" +
@@ -85,6 +95,7 @@ public class CourierJson {
                 ", speed=" + speed +
                 ", lotitude=" + lotitude +
                 ", longitude=" + longitude +
+                ", courierId=" + courierId +
                 '}';
     }
 }
@@ -0,0 +1,121 @@
+package com.delivery.tsp.dto;
+
+import java.util.Arrays;
+
+public class RouteResult {
+
+    private String minPath;
+    private String minWait;
+    private String minWork;
+    private int minDistance = Integer.MAX_VALUE;
+    //delivery point ids of the min distance route in visiting order
+    private int[] route;
+    //false when the solve budget ran out before the search space was exhausted
+    private boolean proven;
+    //false when minWait and minWork were not searched for, only taken from the
+    //shortest route or the warm start (engines that only prove the distance)
+    private boolean waitWorkProven;
+    //Held-Karp bound of the distance and (minDistance - lowerBound) / minDistance
+    private int lowerBound;
+    private double gap = Double.NaN;
+    private long candidatesExplored;
+
+    public RouteResult() {
+    }
+
+    public String getMinPath() {
+        return minPath;
+    }
+
+    public void setMinPath(String minPath) {
+        this.minPath = minPath;
+    }
+
+    public String getMinWait() {
+        return minWait;
+    }
+
+    public void setMinWait(String minWait) {
+        this.minWait = minWait;
+    }
+
+    public String getMinWork() {
+        return minWork;
+    }
+
+    public void setMinWork(String minWork) {
+        this.minWork = minWork;
+    }
+
+    public int getMinDistance() {
+        return minDistance;
+    }
+
+    public void setMinDistance(int minDistance) {
+        this.minDistance = minDistance;
+    }
+
+    public int[] getRoute() {
+        return route;
+    }
+
+    public void setRoute(int[] route) {
+        this.route = route;
+    }
+
+    public boolean isProven() {
+        return proven;
+    }
+
+    public void setProven(boolean proven) {
+        this.proven = proven;
+    }
+
+    public boolean isWaitWorkProven() {
+        return waitWorkProven;
+    }
+
+    public void setWaitWorkProven(boolean waitWorkProven) {
+        this.waitWorkProven = waitWorkProven;
+    }
+
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(int lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public double getGap() {
+        return gap;
+    }
+
+    public void setGap(double gap) {
+        this.gap = gap;
+    }
+
+    public long getCandidatesExplored() {
+        return candidatesExplored;
+    }
+
+    public void setCandidatesExplored(long candidatesExplored) {
+        this.candidatesExplored = candidatesExplored;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteResult{" +
+                "minPath='" + minPath + '\'' +
+                ", minWait='" + minWait + '\'' +
+                ", minWork='" + minWork + '\'' +
+                ", minDistance=" + minDistance +
+                ", route=" + Arrays.toString(route) +
+                ", proven=" + proven +
+                ", waitWorkProven=" + waitWorkProven +
+                ", lowerBound=" + lowerBound +
+                ", gap=" + gap +
+                ", candidatesExplored=" + candidatesExplored +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package com.delivery.tsp.dto;
+
+import java.time.LocalTime;
+
+//timing of one stop order as computed by RouteEvaluator.
+//Times are kept as seconds of day, LocalTime is only built when asked for,
+//so a schedule can be refilled for every candidate without allocating
+public class RouteSchedule {
+
+    private boolean feasible;
+    private int distance;
+    private int totalTime;
+    private int timeWait;
+    private int timeDrive;
+    private int endSecond;
+    //position in the stop order where a delivery window was missed, -1 if none
+    private int failedPosition = -1;
+    private int failedArrivalSecond;
+
+    public RouteSchedule() {
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public void setFeasible(boolean feasible) {
+        this.feasible = feasible;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    public int getTotalTime() {
+        return totalTime;
+    }
+
+    public void setTotalTime(int totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    public int getTimeWait() {
+        return timeWait;
+    }
+
+    public void setTimeWait(int timeWait) {
+        this.timeWait = timeWait;
+    }
+
+    public int getTimeDrive() {
+        return timeDrive;
+    }
+
+    public void setTimeDrive(int timeDrive) {
+        this.timeDrive = timeDrive;
+    }
+
+    //the clock wraps at midnight as LocalTime.plusSeconds does
+    public LocalTime getTimeOnOffice() {
+        return LocalTime.ofSecondOfDay(Math.floorMod(endSecond, 24 * 60 * 60));
+    }
+
+    //back at the office, seconds since midnight of the work day (may pass 24:00)
+    public int getEndSecond() {
+        return endSecond;
+    }
+
+    public void setEndSecond(int endSecond) {
+        this.endSecond = endSecond;
+    }
+
+    public int getFailedPosition() {
+        return failedPosition;
+    }
+
+    public void setFailedPosition(int failedPosition) {
+        this.failedPosition = failedPosition;
+    }
+
+    public LocalTime getFailedArrival() {
+        return LocalTime.ofSecondOfDay(Math.floorMod(failedArrivalSecond, 24 * 60 * 60));
+    }
+
+    public int getFailedArrivalSecond() {
+        return failedArrivalSecond;
+    }
+
+    public void setFailedArrivalSecond(int failedArrivalSecond) {
+        this.failedArrivalSecond = failedArrivalSecond;
+    }
+
+    //back to the state of a new schedule, before it is refilled
+    public void clear() {
+        feasible = false;
+        distance = 0;
+        totalTime = 0;
+        timeWait = 0;
+        timeDrive = 0;
+        endSecond = 0;
+        failedPosition = -1;
+        failedArrivalSecond = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteSchedule{" +
+                "feasible=" + feasible +
+                ", distance=" + distance +
+                ", totalTime=" + totalTime +
+                ", timeWait=" + timeWait +
+                ", timeDrive=" + timeDrive +
+                ", endSecond=" + endSecond +
+                ", failedPosition=" + failedPosition +
+                ", failedArrivalSecond=" + failedArrivalSecond +
+                '}';
+    }
+}
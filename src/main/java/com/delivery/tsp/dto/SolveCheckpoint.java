@@ -0,0 +1,140 @@
+package com.delivery.tsp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Arrays;
+
+//position and best-so-far of a rank range search [fromRank, toRank),
+//written to disk periodically so the search survives a restart.
+//Stops are graph indexes (1..n) like in RouteEvaluator
+public class SolveCheckpoint {
+
+    private String fingerprint;
+    private long fromRank;
+    private long toRank;
+    private long nextRank;
+    private long explored;
+
+    private int minDistance = Integer.MAX_VALUE;
+    private int[] minDistanceStops;
+    private int minWait = Integer.MAX_VALUE;
+    private int[] minWaitStops;
+    //second of day the courier is back in the office
+    private int minEndWork = Integer.MAX_VALUE;
+    private int[] minEndWorkStops;
+
+    public SolveCheckpoint() {
+    }
+
+    public SolveCheckpoint(String fingerprint, long fromRank, long toRank) {
+        this.fingerprint = fingerprint;
+        this.fromRank = fromRank;
+        this.toRank = toRank;
+        this.nextRank = fromRank;
+    }
+
+    @JsonIgnore
+    public boolean isComplete() {
+        return nextRank >= toRank;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public long getFromRank() {
+        return fromRank;
+    }
+
+    public void setFromRank(long fromRank) {
+        this.fromRank = fromRank;
+    }
+
+    public long getToRank() {
+        return toRank;
+    }
+
+    public void setToRank(long toRank) {
+        this.toRank = toRank;
+    }
+
+    public long getNextRank() {
+        return nextRank;
+    }
+
+    public void setNextRank(long nextRank) {
+        this.nextRank = nextRank;
+    }
+
+    public long getExplored() {
+        return explored;
+    }
+
+    public void setExplored(long explored) {
+        this.explored = explored;
+    }
+
+    public int getMinDistance() {
+        return minDistance;
+    }
+
+    public void setMinDistance(int minDistance) {
+        this.minDistance = minDistance;
+    }
+
+    public int[] getMinDistanceStops() {
+        return minDistanceStops;
+    }
+
+    public void setMinDistanceStops(int[] minDistanceStops) {
+        this.minDistanceStops = minDistanceStops;
+    }
+
+    public int getMinWait() {
+        return minWait;
+    }
+
+    public void setMinWait(int minWait) {
+        this.minWait = minWait;
+    }
+
+    public int[] getMinWaitStops() {
+        return minWaitStops;
+    }
+
+    public void setMinWaitStops(int[] minWaitStops) {
+        this.minWaitStops = minWaitStops;
+    }
+
+    public int getMinEndWork() {
+        return minEndWork;
+    }
+
+    public void setMinEndWork(int minEndWork) {
+        this.minEndWork = minEndWork;
+    }
+
+    public int[] getMinEndWorkStops() {
+        return minEndWorkStops;
+    }
+
+    public void setMinEndWorkStops(int[] minEndWorkStops) {
+        this.minEndWorkStops = minEndWorkStops;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveCheckpoint{" +
+                "fromRank=" + fromRank +
+                ", toRank=" + toRank +
+                ", nextRank=" + nextRank +
+                ", explored=" + explored +
+                ", minDistance=" + minDistance +
+                ", minDistanceStops=" + Arrays.toString(minDistanceStops) +
+                '}';
+    }
+}
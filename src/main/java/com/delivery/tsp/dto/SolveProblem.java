@@ -0,0 +1,71 @@
+package com.delivery.tsp.dto;
+
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.util.List;
+
+//everything a partition worker process needs to search its rank range
+public class SolveProblem {
+
+    private String fingerprint;
+    private CourierDto courierDto;
+    private List<DeliveryPoint> deliveryPoints;
+    private int[][] graph;
+    //SpeedProfile factors per bucket, null = constant speed
+    private double[] speedFactors;
+
+    public SolveProblem() {
+    }
+
+    public SolveProblem(String fingerprint
+            , CourierDto courierDto
+            , List<DeliveryPoint> deliveryPoints
+            , int[][] graph
+            , double[] speedFactors) {
+        this.fingerprint = fingerprint;
+        this.courierDto = courierDto;
+        this.deliveryPoints = deliveryPoints;
+        this.graph = graph;
+        this.speedFactors = speedFactors;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public CourierDto getCourierDto() {
+        return courierDto;
+    }
+
+    public void setCourierDto(CourierDto courierDto) {
+        this.courierDto = courierDto;
+    }
+
+    public List<DeliveryPoint> getDeliveryPoints() {
+        return deliveryPoints;
+    }
+
+    public void setDeliveryPoints(List<DeliveryPoint> deliveryPoints) {
+        this.deliveryPoints = deliveryPoints;
+    }
+
+    public int[][] getGraph() {
+        return graph;
+    }
+
+    public void setGraph(int[][] graph) {
+        this.graph = graph;
+    }
+
+    public double[] getSpeedFactors() {
+        return speedFactors;
+    }
+
+    public void setSpeedFactors(double[] speedFactors) {
+        this.speedFactors = speedFactors;
+    }
+}
@@ -2,12 +2,16 @@ package com.delivery.tsp.model;
 
 
 
+import com.delivery.tsp.service.impl.DeliveryPointCacheListener;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import java.math.BigDecimal;
 import java.time.LocalTime;
 
 @Entity
+@EntityListeners(DeliveryPointCacheListener.class)
 public class DeliveryPoint {
 
     @Id
@@ -0,0 +1,99 @@
+package com.delivery.tsp.model;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+//a solved route of one courier from one depot: the delivery point ids in
+//visiting order (comma separated) and what the route cost, see RouteHistory
+@Entity
+@Table(name = "historical_route")
+public class HistoricalRoute {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private String courierId;
+    private String depot;
+    private String pointIds;
+    private int distance;
+    private int timeWait;
+    private int endSecond;
+    private boolean proven;
+    private LocalDateTime solvedAt;
+
+    public HistoricalRoute() {
+    }
+
+    public HistoricalRoute(String courierId
+            , String depot
+            , String pointIds
+            , int distance
+            , int timeWait
+            , int endSecond
+            , boolean proven
+            , LocalDateTime solvedAt) {
+        this.courierId = courierId;
+        this.depot = depot;
+        this.pointIds = pointIds;
+        this.distance = distance;
+        this.timeWait = timeWait;
+        this.endSecond = endSecond;
+        this.proven = proven;
+        this.solvedAt = solvedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public String getDepot() {
+        return depot;
+    }
+
+    public String getPointIds() {
+        return pointIds;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public int getTimeWait() {
+        return timeWait;
+    }
+
+    public int getEndSecond() {
+        return endSecond;
+    }
+
+    public boolean isProven() {
+        return proven;
+    }
+
+    public LocalDateTime getSolvedAt() {
+        return solvedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoricalRoute{" +
+                "id=" + id +
+                ", courierId='" + courierId + '\'' +
+                ", depot='" + depot + '\'' +
+                ", pointIds='" + pointIds + '\'' +
+                ", distance=" + distance +
+                ", timeWait=" + timeWait +
+                ", endSecond=" + endSecond +
+                ", proven=" + proven +
+                ", solvedAt=" + solvedAt +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.delivery.tsp.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+//stored km distance from one delivery point to another, per distance provider
+@Entity
+@IdClass(PointDistanceId.class)
+@Table(name = "point_distance")
+public class PointDistance implements Persistable<PointDistanceId> {
+
+    @Id
+    private String provider;
+    @Id
+    private int fromId;
+    @Id
+    private int toId;
+    private int distance;
+
+    //computed rows are always inserted, saveAll must not select them first
+    @Transient
+    private boolean isNew = true;
+
+    public PointDistance() {
+    }
+
+    public PointDistance(String provider
+            , int fromId
+            , int toId
+            , int distance) {
+        this.provider = provider;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.distance = distance;
+    }
+
+    @Override
+    public PointDistanceId getId() {
+        return new PointDistanceId(provider, fromId, toId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public int getFromId() {
+        return fromId;
+    }
+
+    public int getToId() {
+        return toId;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "PointDistance{" +
+                "provider='" + provider + '\'' +
+                ", fromId=" + fromId +
+                ", toId=" + toId +
+                ", distance=" + distance +
+                '}';
+    }
+}
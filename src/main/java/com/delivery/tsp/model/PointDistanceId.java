@@ -0,0 +1,35 @@
+package com.delivery.tsp.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class PointDistanceId implements Serializable {
+
+    private String provider;
+    private int fromId;
+    private int toId;
+
+    public PointDistanceId() {
+    }
+
+    public PointDistanceId(String provider, int fromId, int toId) {
+        this.provider = provider;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PointDistanceId that = (PointDistanceId) o;
+        return fromId == that.fromId &&
+                toId == that.toId &&
+                Objects.equals(provider, that.provider);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(provider, fromId, toId);
+    }
+}
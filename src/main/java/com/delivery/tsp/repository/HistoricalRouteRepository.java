@@ -0,0 +1,25 @@
+package com.delivery.tsp.repository;
+
+import com.delivery.tsp.model.HistoricalRoute;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface HistoricalRouteRepository extends CrudRepository<HistoricalRoute, Long> {
+
+    //latest routes first, the page size caps how far back a warm start looks
+    List<HistoricalRoute> findByCourierIdAndDepotOrderBySolvedAtDesc(String courierId, String depot, Pageable pageable);
+
+    //ids grow with solvedAt, everything of the courier and depot stored before the oldest kept route
+    @Transactional
+    @Modifying
+    @Query("delete from HistoricalRoute r where r.courierId = :courierId and r.depot = :depot and r.id < :oldestKeptId")
+    int deleteOlderThan(@Param("courierId") String courierId
+            , @Param("depot") String depot
+            , @Param("oldestKeptId") long oldestKeptId);
+}
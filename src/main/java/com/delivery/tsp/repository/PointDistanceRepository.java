@@ -0,0 +1,32 @@
+package com.delivery.tsp.repository;
+
+import com.delivery.tsp.model.PointDistance;
+import com.delivery.tsp.model.PointDistanceId;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PointDistanceRepository extends CrudRepository<PointDistance, PointDistanceId> {
+
+    //all stored distances between the given points in one query
+    @Query("select d from PointDistance d where d.provider = :provider and d.fromId in :ids and d.toId in :ids")
+    List<PointDistance> findSubMatrix(@Param("provider") String provider, @Param("ids") Collection<Integer> ids);
+
+    //stored distances from or to one of points, paired with one of ids
+    @Query("select d from PointDistance d where d.provider = :provider"
+            + " and ((d.fromId in :points and d.toId in :ids) or (d.toId in :points and d.fromId in :ids))")
+    List<PointDistance> findRowsAndColumns(@Param("provider") String provider
+            , @Param("points") Collection<Integer> points
+            , @Param("ids") Collection<Integer> ids);
+
+    //rows and columns of points that were moved or deleted, for every provider
+    @Transactional
+    @Modifying
+    @Query("delete from PointDistance d where d.fromId in :ids or d.toId in :ids")
+    int deleteByPointIds(@Param("ids") Collection<Integer> ids);
+}
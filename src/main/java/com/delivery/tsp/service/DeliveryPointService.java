@@ -2,13 +2,30 @@ package com.delivery.tsp.service;
 
 
 import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteResult;
 import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.utils.SolveBudget;
+
+import java.util.List;
 
 public interface DeliveryPointService {
 
     Iterable<DeliveryPoint> getAllDeliveryPoint();
 
     String getMinPath(CourierDto courierDto);
+    String getMinPath(CourierDto courierDto, SolveBudget solveBudget);
+    RouteResult solve(CourierDto courierDto, SolveBudget solveBudget);
+
+    //up to k feasible routes, shortest first; proven means they are the k best
+    List<RouteResult> solveAlternatives(CourierDto courierDto, int k, SolveBudget solveBudget);
+
+    //re-plans an already solved route (delivery point ids in visiting order)
+    //after points were added or cancelled, without a full search
+    RouteResult reoptimize(CourierDto courierDto
+            , int[] route
+            , List<DeliveryPoint> addedDeliveryPoints
+            , List<Integer> removedPointIds
+            , SolveBudget solveBudget);
     String getMinWaitTime(CourierDto courierDto);
     String getMinWorkTime(CourierDto courierDto);
 
@@ -0,0 +1,20 @@
+package com.delivery.tsp.service;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface RouteSolveService {
+
+    //throws SolverSaturatedException when the request cannot be admitted.
+    //timeLimitMs runs from the call, waiting for a solver thread included.
+    //Requests for the same courier and time limit share one solve
+    CompletableFuture<RouteResult> submit(CourierDto courierDto, long timeLimitMs);
+
+    //not coalesced, every request runs its own search on the solver pool
+    CompletableFuture<List<RouteResult>> submitAlternatives(CourierDto courierDto, int k, long timeLimitMs);
+
+    int getInFlight();
+}
@@ -0,0 +1,9 @@
+package com.delivery.tsp.service;
+
+//thrown when the solver pool and its queue are full; the HTTP layer answers 429
+public class SolverSaturatedException extends RuntimeException {
+
+    public SolverSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.model.DeliveryPoint;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//JPA entity listener, created by Spring through Hibernate's bean container
+//while the EntityManagerFactory is still being built. DistanceTable needs a
+//repository of that factory, so both beans are only looked up in the callback
+public class DeliveryPointCacheListener {
+
+    private final ObjectProvider<RouteResultCache> routeResultCache;
+    private final ObjectProvider<DistanceTable> distanceTable;
+
+    public DeliveryPointCacheListener(ObjectProvider<RouteResultCache> routeResultCache
+            , ObjectProvider<DistanceTable> distanceTable) {
+        this.routeResultCache = routeResultCache;
+        this.distanceTable = distanceTable;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void deliveryPointChanged(DeliveryPoint deliveryPoint) {
+        routeResultCache.getObject().invalidatePoint(deliveryPoint.getId());
+        distanceTable.getObject().pointChanged(deliveryPoint.getId());
+    }
+}
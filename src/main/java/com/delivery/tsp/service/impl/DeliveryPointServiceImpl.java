@@ -1,32 +1,91 @@
 package com.delivery.tsp.service.impl;
 
+import com.delivery.tsp.dto.CompactRoute;
 import com.delivery.tsp.dto.CourierDto;
-import com.delivery.tsp.dto.PointToPoint;
-import com.delivery.tsp.dto.Result;
+import com.delivery.tsp.dto.RouteResult;
+import com.delivery.tsp.dto.RouteSchedule;
+import com.delivery.tsp.dto.SolveCheckpoint;
+import com.delivery.tsp.dto.SolveProblem;
 import com.delivery.tsp.model.DeliveryPoint;
 import com.delivery.tsp.repository.DeliveryPointRepository;
 import com.delivery.tsp.service.DeliveryPointService;
+import com.delivery.tsp.utils.ApproximateDistance;
 import com.delivery.tsp.utils.Distance;
+import com.delivery.tsp.utils.DistanceProvider;
 import com.delivery.tsp.utils.HamiltonCycle;
+import com.delivery.tsp.utils.IncrementalRouter;
+import com.delivery.tsp.utils.KBestRoutes;
+import com.delivery.tsp.utils.LowerBound;
+import com.delivery.tsp.utils.ProblemInstance;
+import com.delivery.tsp.utils.ProblemFingerprint;
+import com.delivery.tsp.utils.RouteEvaluator;
+import com.delivery.tsp.utils.SearchStatistics;
+import com.delivery.tsp.utils.SearchWorkspace;
+import com.delivery.tsp.utils.SharedIncumbent;
+import com.delivery.tsp.utils.SolveBudget;
+import com.delivery.tsp.utils.SolvePhaseEvent;
+import com.delivery.tsp.utils.SpeedProfile;
+import com.delivery.tsp.utils.TimeWindowPruning;
+import com.delivery.tsp.utils.WindowOrderRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class DeliveryPointServiceImpl implements DeliveryPointService {
 
+    private static Logger log = LoggerFactory.getLogger(DeliveryPointServiceImpl.class);
+
     private static final int KILOMETER_TO_METER=1000;
     private static final double KM_HOUR_TO_M_SEC=3.6;
-    private static final int MITUTE_TO_SECOND=60;
+    private static final int PORTFOLIO_MAX_DISPLACEMENT=8;
 
     private DeliveryPointRepository deliveryPointRepository;
-
-    public DeliveryPointServiceImpl(DeliveryPointRepository deliveryPointRepository) {
+    private RouteResultCache routeResultCache;
+    private DistanceProvider distanceProvider;
+    private DistanceTable distanceTable;
+    private PartitionedSolveCoordinator partitionedSolveCoordinator;
+    private SolverPortfolio solverPortfolio;
+    private RouteHistory routeHistory;
+    private SolverSelector solverSelector;
+    private HeldKarpCoordinator heldKarpCoordinator;
+    private SpeedProfile speedProfile;
+    private int maxDisplacement;
+
+    public DeliveryPointServiceImpl(DeliveryPointRepository deliveryPointRepository
+            , RouteResultCache routeResultCache
+            , DistanceProvider distanceProvider
+            , DistanceTable distanceTable
+            , PartitionedSolveCoordinator partitionedSolveCoordinator
+            , SolverPortfolio solverPortfolio
+            , RouteHistory routeHistory
+            , SolverSelector solverSelector
+            , HeldKarpCoordinator heldKarpCoordinator
+            , SpeedProfile speedProfile
+            , @Value("${tsp.solve.max-displacement:0}") int maxDisplacement) {
         this.deliveryPointRepository = deliveryPointRepository;
+        this.routeResultCache = routeResultCache;
+        this.distanceProvider = distanceProvider;
+        this.distanceTable = distanceTable;
+        this.partitionedSolveCoordinator = partitionedSolveCoordinator;
+        this.solverPortfolio = solverPortfolio;
+        this.routeHistory = routeHistory;
+        this.solverSelector = solverSelector;
+        this.heldKarpCoordinator = heldKarpCoordinator;
+        this.speedProfile = speedProfile;
+        this.maxDisplacement = maxDisplacement;
     }
 
     @Override
@@ -36,147 +95,516 @@ public class DeliveryPointServiceImpl implements DeliveryPointService {
 
     @Override
     public String getMinPath(CourierDto courierDto) {
+        return getMinPath(courierDto, SolveBudget.unlimited());
+    }
+
+    @Override
+    public String getMinPath(CourierDto courierDto, SolveBudget solveBudget) {
+        RouteResult routeResult=solve(courierDto, solveBudget);
+
+        SolvePhaseEvent formattingEvent=SolvePhaseEvent.start(SolvePhaseEvent.FORMATTING);
+        String formatted=formatRouteResult(routeResult);
+        formattingEvent.finish(routeResult.getRoute()!=null ? routeResult.getRoute().length : 0);
+        return formatted;
+    }
+
+    @Override
+    public RouteResult solve(CourierDto courierDto, SolveBudget solveBudget) {
+        SolvePhaseEvent loadEvent=SolvePhaseEvent.start(SolvePhaseEvent.REPOSITORY_LOAD);
         Iterable<DeliveryPoint> allDeliveryPoint= deliveryPointRepository.findAll();
         List<DeliveryPoint> deliveryPointList=new ArrayList<>();
         allDeliveryPoint.forEach(deliveryPointList::add);
+        int points=deliveryPointList.size();
+        loadEvent.finish(points);
+
+        String fingerprint = ProblemFingerprint.of(courierDto, deliveryPointList);
+        RouteResult cached = routeResultCache.get(fingerprint);
+        if(cached!=null){
+            return cached;
+        }
 
         //validate data
+        SolvePhaseEvent validationEvent=SolvePhaseEvent.start(SolvePhaseEvent.VALIDATION);
         validateTime(deliveryPointList,courierDto);
         validateDistance(deliveryPointList,courierDto);
+        validationEvent.finish(points);
+
+        SolvePhaseEvent matrixEvent=SolvePhaseEvent.start(SolvePhaseEvent.MATRIX_BUILD);
+        int[][] graph=distanceTable.matrix(courierDto,deliveryPointList);
+        //compiled once, every solver of this request reads the same primitive arrays
+        ProblemInstance instance=ProblemInstance.compile(courierDto,deliveryPointList,graph,speedProfile);
+        matrixEvent.finish(points);
+
+        //routes are evaluated as they are enumerated, so when the budget
+        //runs out the incumbents hold the best feasible routes seen so far
+        RouteEvaluator routeEvaluator=new RouteEvaluator(instance);
+        TimeWindowPruning pruning=TimeWindowPruning.of(instance);
+        log.info("time window preprocessing: {}", pruning);
+
+        int lowerBound=LowerBound.heldKarp(graph);
+
+        //with a gap tolerance the search stops as soon as the shortest
+        //feasible route is close enough to the lower bound
+        RouteIncumbents incumbents=new RouteIncumbents();
+        SearchStatistics statistics=new SearchStatistics();
+
+        //the solvers start from the best remembered route instead of nothing,
+        //a solver route only replaces the objectives it beats
+        int[] warmStart=warmStart(courierDto, deliveryPointList, routeEvaluator, pruning, solveBudget);
+        if(warmStart!=null){
+            evaluateRoute(warmStart, routeEvaluator.distance(warmStart, warmStart.length)
+                    , new RouteSchedule(), routeEvaluator, courierDto, incumbents);
+            log.info("warm start from route history: {}km", incumbents.minPathLong);
+        }
+        SolvePhaseEvent searchEvent=SolvePhaseEvent.start(SolvePhaseEvent.SEARCH);
+        //evaluation runs inside the search, it is only timed while a recording wants the event
+        boolean timeEvaluation=searchEvent.isEnabled();
+        //a configured displacement always wins, otherwise the engine comes from the estimates.
+        //Time-dependent speeds are not FIFO, the DP time dominance is then only a heuristic
+        SolverSelector.Selection selection=maxDisplacement>0
+                ? new SolverSelector.Selection(SolverSelector.Engine.WINDOW_ORDER, maxDisplacement
+                        , maxDisplacement>=points && !instance.isTimeDependent(), "tsp.solve.max-displacement")
+                : solverSelector.select(instance, pruning, solveBudget);
+        log.info("solver selection: {}", selection);
+        boolean completed;
+        //only the enumerating engines search the least waiting and earliest finish,
+        //the others prove the shortest route and report it for every objective
+        boolean waitWorkSearched=false;
+        //raised by a Held-Karp route that is not on time: nothing on time is shorter
+        int relaxedBound=0;
+        if(selection.getEngine()==SolverSelector.Engine.WINDOW_ORDER){
+            //window-ordered dynamic programming, exact only when no stop is excluded
+            int[] stops=new WindowOrderRouter(instance).solve(selection.getMaxDisplacement(),solveBudget);
+            setIncumbents(stops, routeEvaluator, courierDto, incumbents);
+            completed=stops!=null && selection.isExact();
+        }else if(selection.getEngine()==SolverSelector.Engine.HELD_KARP){
+            //shortest over the feasible arcs, optimal when it is also on time,
+            //otherwise a lower bound and the start of a repair
+            int[] stops=heldKarpCoordinator.solve(instance, pruning, solveBudget);
+            completed=stops!=null && routeEvaluator.evaluate(stops).isFeasible();
+            if(stops!=null && !completed){
+                relaxedBound=routeEvaluator.distance(stops, stops.length);
+                stops=new IncrementalRouter(routeEvaluator, pruning).repair(stops, solveBudget);
+                log.info("held-karp route not on time, lower bound {}km", relaxedBound);
+            }
+            if(stops==null || !routeEvaluator.evaluate(stops).isFeasible())
+                stops=localSearch(points, routeEvaluator, pruning, solveBudget);
+            setIncumbents(stops, routeEvaluator, courierDto, incumbents);
+        }else if(selection.getEngine()==SolverSelector.Engine.LOCAL_SEARCH){
+            //too large to prove, a feasible route within the budget
+            setIncumbents(localSearch(points, routeEvaluator, pruning, solveBudget), routeEvaluator, courierDto, incumbents);
+            completed=false;
+        }else if(selection.getEngine()==SolverSelector.Engine.PORTFOLIO){
+            //strategies race on separate threads, the shortest route wins every objective
+            SharedIncumbent incumbent=new SharedIncumbent();
+            if(warmStart!=null)
+                incumbent.offer(incumbents.minPathLong, warmStart, "history");
+            completed=solverPortfolio.solve(
+                    portfolioStrategies(instance, graph, routeEvaluator, pruning)
+                    , incumbent, lowerBound, solveBudget);
+            setIncumbents(incumbent.getStops(), routeEvaluator, courierDto, incumbents);
+        }else if(selection.getEngine()==SolverSelector.Engine.PARTITIONED){
+            //large instances go to worker processes, without the gap early stop
+            SolveCheckpoint merged=partitionedSolveCoordinator.solve(
+                    new SolveProblem(fingerprint, courierDto, deliveryPointList, graph
+                            , speedProfile.isConstant() ? null : speedProfile.getFactors()), solveBudget);
+            setIncumbents(merged, routeEvaluator, courierDto, incumbents);
+            completed=merged.isComplete();
+            waitWorkSearched=true;
+        }else {
+            //the permutation and the schedule come from this thread's workspace
+            try (SearchWorkspace workspace=SearchWorkspace.acquire()) {
+                completed = new HamiltonCycle(graph, 0, pruning).search(workspace, solveBudget, statistics, null
+                        , (stops, distance) -> {
+                            long evaluationStart=timeEvaluation ? System.nanoTime() : 0;
+                            incumbents.explored++;
+                            evaluateRoute(stops, distance, workspace.schedule(), routeEvaluator, courierDto, incumbents);
+                            if(timeEvaluation)
+                                incumbents.evaluationNanos+=System.nanoTime()-evaluationStart;
+                            return !solveBudget.isWithinGap(LowerBound.gap(incumbents.minPathLong, lowerBound));
+                        });
+            }
+            //only a completed enumeration has seen every waiting time and finish
+            waitWorkSearched=completed;
+            //a gap stop at 0: no route is shorter than the lower bound
+            if(!completed && LowerBound.gap(incumbents.minPathLong, lowerBound)==0)
+                completed=true;
+        }
+        searchEvent.finish(points, incumbents.explored, statistics.getPrunedPrefixes(), incumbents.evaluationNanos);
+
+        RouteResult routeResult=new RouteResult();
+        routeResult.setMinPath(incumbents.minPath);
+        routeResult.setMinWait(incumbents.minWait);
+        routeResult.setMinWork(incumbents.minWork);
+        routeResult.setMinDistance(incumbents.minPathLong);
+        routeResult.setRoute(toPointIds(incumbents.minPathStops, deliveryPointList));
+        routeResult.setProven(completed);
+        routeResult.setWaitWorkProven(completed && waitWorkSearched);
+        routeResult.setLowerBound(Math.max(lowerBound, relaxedBound));
+        routeResult.setGap(LowerBound.gap(incumbents.minPathLong, Math.max(lowerBound, relaxedBound)));
+        routeResult.setCandidatesExplored(incumbents.explored);
+
+        if(incumbents.minPathStops!=null){
+            routeHistory.record(courierDto, routeResult.getRoute()
+                    , routeEvaluator.evaluate(incumbents.minPathStops), completed);
+        }
 
-        int[][] graph=createMatrixDistance(courierDto,deliveryPointList);
-
-        List<Result> resultList = HamiltonCycle.travllingSalesmanProblem(graph, 0);
-
-
-        int speed = courierDto.getSpeed();
-        int[] spendTime = courierDto.getSpendTime();
-        int totalWorkTimeInSeconds=(int)courierDto.getBeginWorkDay()
-                .until(courierDto.getEndWorkDay(),ChronoUnit.SECONDS);
-        int secondReturnBack=0;
-
-        StringBuilder resultString=null;
-        String minPath=null;
-        String minWait=null;
-        String minWork=null;
-
-        int minTimeWait=Integer.MAX_VALUE;
-        int minPathLong=Integer.MAX_VALUE;
-        //int leftTimeSec=(int)courierDto.getBeginWorkDay().until(courierDto.getEndWorkDay(),ChronoUnit.SECONDS);
-
-        LocalTime minTimeEndWork=LocalTime.MAX;
-
-        for (Result result: resultList ) {
-            resultString=new StringBuilder();
-            LocalTime timeDeparture=null;
-            LocalTime timeArrived=null;
-            int totalTime=0;
-            int timeWait=0;
-            int timeDrive=0;
+        //a budget-limited best-so-far must not be served to a later caller with more time
+        if(completed){
+            routeResultCache.put(fingerprint
+                    , deliveryPointList.stream().mapToInt(DeliveryPoint::getId).toArray()
+                    , routeResult);
+        }
+        return routeResult;
+    }
 
+    @Override
+    public List<RouteResult> solveAlternatives(CourierDto courierDto, int k, SolveBudget solveBudget) {
+        List<DeliveryPoint> deliveryPointList=new ArrayList<>();
+        deliveryPointRepository.findAll().forEach(deliveryPointList::add);
 
-            boolean isExit=false;
+        validateTime(deliveryPointList,courierDto);
+        validateDistance(deliveryPointList,courierDto);
 
-            List<PointToPoint> pointList = result.getPointList();
-            PointToPoint pointToPoint=null;
+        int[][] graph=distanceTable.matrix(courierDto,deliveryPointList);
+        ProblemInstance instance=ProblemInstance.compile(courierDto,deliveryPointList,graph,speedProfile);
+        RouteEvaluator routeEvaluator=new RouteEvaluator(instance);
+        TimeWindowPruning pruning=TimeWindowPruning.of(instance);
+        int lowerBound=LowerBound.heldKarp(graph);
+        //alternatives need the enumeration, a predicted blow-up is refused up front
+        solverSelector.checkEnumeration(instance, pruning, solveBudget);
+
+        //only the k best stop orders are kept, memory does not grow with the search space
+        KBestRoutes kBestRoutes=new KBestRoutes(k);
+        long[] explored=new long[1];
+        boolean completed;
+        try (SearchWorkspace workspace=SearchWorkspace.acquire()) {
+            completed = new HamiltonCycle(graph, 0, pruning).search(workspace, solveBudget, null, null
+                    , (stops, distance) -> {
+                        explored[0]++;
+                        kBestRoutes.offer(stops, routeEvaluator.evaluate(stops, stops.length, workspace.schedule()));
+                        return true;
+                    });
+        }
 
-            for (int i=0;i<pointList.size();i++ ) {
-                pointToPoint=pointList.get(i);
-                if(i==0){
-                    appendStartPoint(resultString,pointToPoint.getStartPoint());
-                    timeDeparture=courierDto.getBeginWorkDay();
-                }
+        //route strings are built for the survivors only
+        List<RouteResult> alternatives=new ArrayList<>();
+        for (CompactRoute compactRoute:kBestRoutes.toSortedList()) {
+            int[] stops=compactRoute.toStops();
+            String routeString=routeString(stops, routeEvaluator.evaluate(stops), routeEvaluator, courierDto);
+
+            RouteResult routeResult=new RouteResult();
+            routeResult.setMinPath(routeString);
+            routeResult.setMinWait(routeString);
+            routeResult.setMinWork(routeString);
+            routeResult.setMinDistance(compactRoute.getDistance());
+            routeResult.setRoute(toPointIds(stops, deliveryPointList));
+            //proven k shortest, every objective shows the same route
+            routeResult.setProven(completed);
+            routeResult.setLowerBound(lowerBound);
+            routeResult.setGap(LowerBound.gap(compactRoute.getDistance(), lowerBound));
+            routeResult.setCandidatesExplored(explored[0]);
+            alternatives.add(routeResult);
+        }
+        return alternatives;
+    }
 
-                appendEndPoint(resultString,pointToPoint.getEndPoint());
+    @Override
+    public RouteResult reoptimize(CourierDto courierDto
+            , int[] route
+            , List<DeliveryPoint> addedDeliveryPoints
+            , List<Integer> removedPointIds
+            , SolveBudget solveBudget) {
+
+        //the stored points of the route, then the added ones. A cancelled
+        //point may already be deleted, it is simply not found
+        Set<Integer> routeIds=new HashSet<>();
+        Arrays.stream(route).forEach(routeIds::add);
+        List<DeliveryPoint> deliveryPointList=new ArrayList<>();
+        deliveryPointRepository.findAll().forEach(deliveryPoint -> {
+            if(routeIds.contains(deliveryPoint.getId()))
+                deliveryPointList.add(deliveryPoint);
+        });
+        Set<Integer> missingIds=new HashSet<>(routeIds);
+        deliveryPointList.forEach(deliveryPoint -> missingIds.remove(deliveryPoint.getId()));
+        missingIds.removeAll(removedPointIds);
+        if(!missingIds.isEmpty()){
+            throw new RuntimeException("Route contains unknown delivery points " + missingIds);
+        }
+        //a point that is already routed (or added twice) is inserted only once
+        List<Integer> addedIds=new ArrayList<>();
+        for (DeliveryPoint added:addedDeliveryPoints) {
+            if(routeIds.add(added.getId())){
+                deliveryPointList.add(added);
+                addedIds.add(added.getId());
+            }
+        }
 
-                totalTime += (pointToPoint.getMesure()*KILOMETER_TO_METER)/(speed/KM_HOUR_TO_M_SEC);
-                timeDrive +=(pointToPoint.getMesure()*KILOMETER_TO_METER)/(speed/KM_HOUR_TO_M_SEC);
+        validateTime(addedDeliveryPoints,courierDto);
+        validateDistance(addedDeliveryPoints,courierDto);
 
-                //leftTimeSec -=totalTime;
+        //added points may not be stored yet, so they stay out of the distance table
+        int[][] graph=createMatrixDistance(courierDto,deliveryPointList);
+        ProblemInstance instance=ProblemInstance.compile(courierDto,deliveryPointList,graph,speedProfile);
+        RouteEvaluator routeEvaluator=new RouteEvaluator(instance);
+
+        TimeWindowPruning pruning=TimeWindowPruning.of(instance);
+        int[] updated = new IncrementalRouter(routeEvaluator, pruning).update(
+                toStops(route, deliveryPointList)
+                , toStops(addedIds.stream().mapToInt(Integer::intValue).toArray(), deliveryPointList)
+                , toStops(removedPointIds.stream().mapToInt(Integer::intValue).toArray(), deliveryPointList)
+                , solveBudget);
+
+        RouteSchedule schedule=routeEvaluator.evaluate(updated);
+        String routeString=routeString(updated, schedule, routeEvaluator, courierDto);
+
+        RouteResult routeResult=new RouteResult();
+        routeResult.setMinPath(routeString);
+        routeResult.setMinWait(routeString);
+        routeResult.setMinWork(routeString);
+        routeResult.setMinDistance(schedule.isFeasible() ? schedule.getDistance() : Integer.MAX_VALUE);
+        routeResult.setRoute(toPointIds(updated, deliveryPointList));
+        routeResult.setProven(false);
+        routeResult.setLowerBound(LowerBound.heldKarp(graph));
+        routeResult.setGap(LowerBound.gap(routeResult.getMinDistance(), routeResult.getLowerBound()));
+        return routeResult;
+    }
 
-                //System.out.println("---->totalTime: " + totalTime);
-                LocalTime timeOnPoint = timeDeparture.plusSeconds(totalTime);
-                //spendTime[i]*60;
-                if(deliveryPointList.get(i).getDeliveryTo().isBefore(timeOnPoint)){
+    //the most similar remembered route with today's missing points dropped and
+    //new points inserted where they fit the windows best, then locally
+    //repaired. null when there is no history or the result is infeasible
+    private int[] warmStart(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , RouteEvaluator routeEvaluator
+            , TimeWindowPruning pruning
+            , SolveBudget solveBudget){
+
+        int[] historical=routeHistory.mostSimilarRoute(courierDto, deliveryPointList);
+        if(historical==null){
+            return null;
+        }
+        int[] kept=toStops(historical, deliveryPointList);
+        boolean[] inRoute=new boolean[deliveryPointList.size()+1];
+        Arrays.stream(kept).forEach(stop -> inRoute[stop]=true);
+        int[] added=new int[deliveryPointList.size()-kept.length];
+        int k=0;
+        for (int stop=1;stop<inRoute.length;stop++) {
+            if(!inRoute[stop])
+                added[k++]=stop;
+        }
 
-                    appendLostDelivery(resultString
-                            ,deliveryPointList.get(i).getId()
-                            ,timeOnPoint,deliveryPointList.get(i).getDeliveryTo());
+        int[] stops=new IncrementalRouter(routeEvaluator, pruning).update(kept, added, new int[0], solveBudget);
+        return routeEvaluator.evaluate(stops).isFeasible() ? stops : null;
+    }
 
-                    System.out.println(resultString.toString());
-                    isExit=true;
-                    break;
-                }else {
-                    if(timeOnPoint.isBefore(deliveryPointList.get(i).getDeliveryFrom())){
+    //exhaustive wins on short routes, window order DP on tight windows,
+    //local search gives large routes a feasible incumbent early
+    private static Map<String, SolverPortfolio.Strategy> portfolioStrategies(ProblemInstance instance
+            , int[][] graph
+            , RouteEvaluator routeEvaluator
+            , TimeWindowPruning pruning){
+
+        int points=instance.size()-1;
+        Map<String, SolverPortfolio.Strategy> strategies=new LinkedHashMap<>();
+        HamiltonCycle hamiltonCycle=new HamiltonCycle(graph, 0, pruning);
+        strategies.put("exhaustive", (incumbent, solveBudget) -> {
+            try (SearchWorkspace workspace=SearchWorkspace.acquire()) {
+                return hamiltonCycle.search(workspace, solveBudget, null, incumbent::getDistance
+                        , (stops, distance) -> {
+                            if(routeEvaluator.evaluate(stops, stops.length, workspace.schedule()).isFeasible())
+                                incumbent.offer(distance, stops, "exhaustive");
+                            return true;
+                        });
+            }
+        });
+        strategies.put("window-order", (incumbent, solveBudget) -> {
+            int maxDisplacement=Math.min(points, PORTFOLIO_MAX_DISPLACEMENT);
+            int[] stops=new WindowOrderRouter(instance)
+                    .solve(Math.max(1, maxDisplacement), solveBudget);
+            if(stops==null)
+                return false;
+            incumbent.offer(routeEvaluator.distance(stops, stops.length), stops, "window-order");
+            return maxDisplacement>=points && !instance.isTimeDependent();
+        });
+        strategies.put("local-search", (incumbent, solveBudget) -> {
+            int[] stops=localSearch(points, routeEvaluator, pruning, solveBudget);
+            RouteSchedule schedule=routeEvaluator.evaluate(stops);
+            if(schedule.isFeasible())
+                incumbent.offer(schedule.getDistance(), stops, "local-search");
+            return false;
+        });
+        return strategies;
+    }
 
-                        timeWait +=timeOnPoint.until(deliveryPointList.get(i).getDeliveryFrom(), ChronoUnit.SECONDS);
-                        totalTime += timeOnPoint.until(deliveryPointList.get(i).getDeliveryFrom(), ChronoUnit.SECONDS);;
-                    }
-                    timeWait +=spendTime[i]*MITUTE_TO_SECOND;
-                    totalTime += spendTime[i]*MITUTE_TO_SECOND;
-                }
+    //every stop inserted tightest window first, then relocate / exchange / 2-opt
+    private static int[] localSearch(int points
+            , RouteEvaluator routeEvaluator
+            , TimeWindowPruning pruning
+            , SolveBudget solveBudget){
+        int[] all=new int[points];
+        for (int i=0;i<points;i++) {
+            all[i]=i+1;
+        }
+        return new IncrementalRouter(routeEvaluator, pruning).update(new int[0], all, new int[0], solveBudget);
+    }
 
-            }
+    //stops and schedule are search scratch, copied only when a route is kept.
+    //Callers count the routes they explored, a warm start is not one of them
+    private static void evaluateRoute(int[] stops
+            , int distance
+            , RouteSchedule schedule
+            , RouteEvaluator routeEvaluator
+            , CourierDto courierDto
+            , RouteIncumbents incumbents){
+
+        routeEvaluator.evaluate(stops, stops.length, schedule);
+        if(!schedule.isFeasible()){
+            //most candidates of a windowed day end here, the text is only built for debugging
+            if(log.isDebugEnabled())
+                log.debug("infeasible route: {}", routeString(stops, schedule, routeEvaluator, courierDto));
+            return;
+        }
 
-            if (isExit){
-                resultString.setLength(0);
-                continue;
-            }
+        //the route text is only built when the route beats an incumbent
+        String resultString=null;
+        if(incumbents.minPathLong>distance){
+            resultString=routeString(stops, schedule, routeEvaluator, courierDto);
+            incumbents.minPathLong=distance;
+            incumbents.minPath=resultString;
+            incumbents.minPathStops=stops.clone();
+        }
 
+        if(incumbents.minTimeWait>schedule.getTimeWait()){
+            if(resultString==null)
+                resultString=routeString(stops, schedule, routeEvaluator, courierDto);
+            incumbents.minTimeWait=schedule.getTimeWait();
+            incumbents.minWait=resultString;
+        }
 
-            //return back
-            secondReturnBack=secondReturnBack(result,speed);
-            totalTime += secondReturnBack;
-            timeDrive += secondReturnBack;
-            LocalTime timeOnOffice = timeDeparture.plusSeconds(totalTime);
+        if(incumbents.minEndSecond>schedule.getEndSecond()){
+            if(resultString==null)
+                resultString=routeString(stops, schedule, routeEvaluator, courierDto);
+            incumbents.minEndSecond=schedule.getEndSecond();
+            incumbents.minWork=resultString;
+        }
+    }
 
-            if(timeOnOffice.isAfter(courierDto.getEndWorkDay())){
+    //the solver route takes every objective it beats, a warm start it did
+    //not beat (budget ran out, displacement too small) keeps the others
+    private static void setIncumbents(int[] stops
+            , RouteEvaluator routeEvaluator
+            , CourierDto courierDto
+            , RouteIncumbents incumbents){
 
-                appendLostOffice(resultString,timeOnOffice,courierDto.getEndWorkDay());
+        if(stops==null){
+            return;
+        }
+        RouteSchedule schedule=routeEvaluator.evaluate(stops);
+        if(!schedule.isFeasible()){
+            return;
+        }
+        incumbents.explored++;
+        evaluateRoute(stops, schedule.getDistance(), schedule, routeEvaluator, courierDto, incumbents);
+    }
 
-                System.out.println(resultString.toString());
-                continue;
-            }
+    private static void setIncumbents(SolveCheckpoint checkpoint
+            , RouteEvaluator routeEvaluator
+            , CourierDto courierDto
+            , RouteIncumbents incumbents){
 
-            appendRestResult(resultString,result.getTotalMesure(),totalTime,timeWait,timeOnOffice,timeDrive);
+        //shortest route first, it keeps the distance objective on a tie
+        setIncumbents(checkpoint.getMinDistanceStops(), routeEvaluator, courierDto, incumbents);
+        setIncumbents(checkpoint.getMinWaitStops(), routeEvaluator, courierDto, incumbents);
+        setIncumbents(checkpoint.getMinEndWorkStops(), routeEvaluator, courierDto, incumbents);
+        incumbents.explored=checkpoint.getExplored();
+    }
 
-            //System.out.println("ResultString: " + resultString.toString());
-            //System.out.println("---->"+result);
-            //break;
-            if(minPathLong>result.getTotalMesure()){
-                minPathLong=result.getTotalMesure();
-                minPath=resultString.toString();
-            }
+    private static String routeString(int[] stops
+            , RouteSchedule schedule
+            , RouteEvaluator routeEvaluator
+            , CourierDto courierDto){
 
-            if(minTimeWait>timeWait){
-                minTimeWait=timeWait;
-                minWait=resultString.toString();
-            }
+        StringBuilder resultString=new StringBuilder();
+        appendStartPoint(resultString,"0");
+        int visited = schedule.getFailedPosition() >= 0 ? schedule.getFailedPosition() + 1 : stops.length;
+        for (int i=0;i<visited;i++) {
+            appendEndPoint(resultString,String.valueOf(stops[i]));
+        }
 
-            if(minTimeEndWork.isAfter(timeOnOffice)){
-                minTimeEndWork=timeOnOffice;
-                minWork=resultString.toString();
-            }
+        if(schedule.getFailedPosition() >= 0){
+            ProblemInstance instance=routeEvaluator.getInstance();
+            int lost=stops[schedule.getFailedPosition()];
+            appendLostDelivery(resultString
+                    ,instance.getPointId(lost)
+                    ,schedule.getFailedArrival(),LocalTime.ofSecondOfDay(instance.getWindowEnd(lost)));
+            return resultString.toString();
+        }
+        if(!schedule.isFeasible()){
+            appendLostOffice(resultString,schedule.getTimeOnOffice(),courierDto.getEndWorkDay());
+            return resultString.toString();
+        }
+        appendRestResult(resultString
+                ,schedule.getDistance()
+                ,schedule.getTotalTime()
+                ,schedule.getTimeWait()
+                ,schedule.getTimeOnOffice()
+                ,schedule.getTimeDrive());
+        return resultString.toString();
+    }
 
+    //delivery point ids -> graph indexes of deliveryPointList
+    private static int[] toStops(int[] pointIds, List<DeliveryPoint> deliveryPointList){
+        Map<Integer,Integer> stopById=new HashMap<>();
+        for (int i=0;i<deliveryPointList.size();i++) {
+            stopById.put(deliveryPointList.get(i).getId(), i+1);
         }
-//        System.out.println("ResultString min path: " + minPath);
-//        System.out.println("ResultString min wait " + minWait);
-//        System.out.println("ResultString min end of work " + minWork);
+        return Arrays.stream(pointIds)
+                .filter(stopById::containsKey)
+                .map(stopById::get)
+                .toArray();
+    }
 
+    private static int[] toPointIds(int[] stops, List<DeliveryPoint> deliveryPointList){
+        if(stops==null)
+            return null;
+        return Arrays.stream(stops)
+                .map(stop -> deliveryPointList.get(stop-1).getId())
+                .toArray();
+    }
 
+    private static String formatRouteResult(RouteResult routeResult){
+        String proven = !routeResult.isProven()
+                ? "\n" + "(solve budget exhausted after " + routeResult.getCandidatesExplored()
+                + " routes: best found so far, optimality not proven)"
+                : routeResult.isWaitWorkProven()
+                ? ""
+                : "\n" + "(shortest route proven optimal, waiting time and work end "
+                + "are taken from it and not optimized)";
 
         return  "\n\n" + "====================RESULT======================" +"\n"
-               + minPath
+               + routeResult.getMinPath()
                 + "\n\n" + "-----------------------------------------------" +"\n"
-                +minWait
+                +routeResult.getMinWait()
                 + "\n\n"+ "-----------------------------------------------"  +"\n"
-                +minWork
-                + "\n\n"+ "-----------------------------------------------";
-
+                +routeResult.getMinWork()
+                + "\n\n"+ "-----------------------------------------------"
+                + "\n" + "Lower bound: " + routeResult.getLowerBound() + "km. Gap: "
+                + (Double.isNaN(routeResult.getGap()) ? "-" : String.format("%.1f%%", routeResult.getGap() * 100))
+                + proven;
     }
 
-
-
+    //best feasible route seen so far for every objective
+    private static class RouteIncumbents {
+        private String minPath;
+        private String minWait;
+        private String minWork;
+        private int minPathLong=Integer.MAX_VALUE;
+        private int minTimeWait=Integer.MAX_VALUE;
+        private int minEndSecond=Integer.MAX_VALUE;
+        private int[] minPathStops;
+        private long explored;
+        private long evaluationNanos;
+    }
 
     private static void appendRestResult(StringBuilder resultString
             , int totalMesure
@@ -231,10 +659,6 @@ public class DeliveryPointServiceImpl implements DeliveryPointService {
         resultString.append("]");
     }
 
-    private static int secondReturnBack(Result result,int speed){
-        return (int) ((result.getReturnDistance()*KILOMETER_TO_METER)/(speed/KM_HOUR_TO_M_SEC));
-    }
-
     private static void validateTime(List<DeliveryPoint> deliveryPointList
             , CourierDto courierDto){
 
@@ -253,42 +677,63 @@ public class DeliveryPointServiceImpl implements DeliveryPointService {
         }
     }
 
+    //decides on the approximate distance and its error margin,
+    //only calls the exact haversine when the limit lies inside the margin
     private static void validateDistance(List<DeliveryPoint> deliveryPointList
             , CourierDto courierDto){
-        long workTime=courierDto.getBeginWorkDay().until(courierDto.getEndWorkDay(),ChronoUnit.SECONDS);
+        int secondsWorkCourier = (int) courierDto.getBeginWorkDay()
+                .until(courierDto.getEndWorkDay(),ChronoUnit.SECONDS);
+
+        double[] latitudes=new double[deliveryPointList.size()+1];
+        latitudes[0]=courierDto.getLotitude();
+        for (int i=0;i<deliveryPointList.size();i++) {
+            latitudes[i+1]=deliveryPointList.get(i).getLatitude();
+        }
+        ApproximateDistance approximateDistance=ApproximateDistance.around(latitudes);
+
         for (DeliveryPoint deliveryPoint:deliveryPointList) {
 
-            int distanceBetweenPoints=Distance.distFrom(
+            int[] kilometerRange=approximateDistance.kilometerRange(
                     courierDto.getLotitude()
                     ,courierDto.getLongitude()
                     ,deliveryPoint.getLatitude()
                     ,deliveryPoint.getLongitude());
-            int timeSecondsForDistance= (int) (distanceBetweenPoints*KILOMETER_TO_METER/(courierDto.getSpeed()/KM_HOUR_TO_M_SEC));
-            int secondsWorkCourier = (int) courierDto.getBeginWorkDay()
-                    .until(courierDto.getEndWorkDay(),ChronoUnit.SECONDS);
+            if(!isTooFar(kilometerRange[1],courierDto.getSpeed(),secondsWorkCourier)){
+                continue;
+            }
 
-            if(timeSecondsForDistance*2>secondsWorkCourier){
+            int distanceBetweenPoints=isTooFar(kilometerRange[0],courierDto.getSpeed(),secondsWorkCourier)
+                    ? kilometerRange[0]
+                    : Distance.distFrom(
+                    courierDto.getLotitude()
+                    ,courierDto.getLongitude()
+                    ,deliveryPoint.getLatitude()
+                    ,deliveryPoint.getLongitude());
+
+            if(isTooFar(distanceBetweenPoints,courierDto.getSpeed(),secondsWorkCourier)){
                 throw new RuntimeException("Distance to [" + deliveryPoint.getId()+"] is too much!!!");
             }
         }
     }
 
+    private static boolean isTooFar(int distanceBetweenPoints, int speed, int secondsWorkCourier){
+        int timeSecondsForDistance= (int) (distanceBetweenPoints*KILOMETER_TO_METER/(speed/KM_HOUR_TO_M_SEC));
+        return timeSecondsForDistance*2>secondsWorkCourier;
+    }
 
-    private static int[][] createMatrixDistance(CourierDto courierDto,List<DeliveryPoint> deliveryPointList){
+
+    private int[][] createMatrixDistance(CourierDto courierDto,List<DeliveryPoint> deliveryPointList){
 
         int size = deliveryPointList.size();
-        int[][]graph=new int[size+1][size+1];
-
-        for(int i=0;i<=size;i++){
-            for (int j=0;j<=size;j++){
-                graph[i][j]= Distance.distFrom(
-                        (i==0) ? courierDto.getLotitude() : deliveryPointList.get(i-1).getLatitude()
-                        ,(i==0) ? courierDto.getLongitude() : deliveryPointList.get(i-1).getLongitude()
-                        ,(j==0) ? courierDto.getLotitude() : deliveryPointList.get(j-1).getLatitude()
-                        ,(j==0) ? courierDto.getLongitude() : deliveryPointList.get(j-1).getLongitude());
-            }
+        double[] latitudes=new double[size+1];
+        double[] longitudes=new double[size+1];
+        latitudes[0]=courierDto.getLotitude();
+        longitudes[0]=courierDto.getLongitude();
+        for(int i=1;i<=size;i++){
+            latitudes[i]=deliveryPointList.get(i-1).getLatitude();
+            longitudes[i]=deliveryPointList.get(i-1).getLongitude();
         }
-        return graph;
+        return distanceProvider.matrix(latitudes,longitudes);
     }
 
     private static int[][] createMatrixWaiting(CourierDto courierDto,List<DeliveryPoint> deliveryPointList){
@@ -0,0 +1,234 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.model.PointDistance;
+import com.delivery.tsp.model.PointDistanceId;
+import com.delivery.tsp.repository.PointDistanceRepository;
+import com.delivery.tsp.utils.DistanceProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//persisted point-to-point distances (PointDistance) so a solve does not
+//recompute the whole matrix. The sub-matrix of the selected points comes from
+//one bulk query; only the rows and columns of points that are new or were
+//moved are computed, in one provider call each, and stored. Moves are seen
+//through DeliveryPointCacheListener, points edited around this application
+//need their rows deleted by hand. The depot row and column belong to the
+//courier and are always computed. Solves read and compute in parallel, only
+//the insert of computed pairs is serialized
+@Component
+public class DistanceTable {
+
+    private static Logger log = LoggerFactory.getLogger(DistanceTable.class);
+
+    private final PointDistanceRepository pointDistanceRepository;
+    private final DistanceProvider distanceProvider;
+    private final boolean enabled;
+    private final Set<Integer> changedPointIds = ConcurrentHashMap.newKeySet();
+    private final Object insertLock = new Object();
+
+    public DistanceTable(PointDistanceRepository pointDistanceRepository
+            , DistanceProvider distanceProvider
+            , @Value("${tsp.distance.table.enabled:true}") boolean enabled) {
+        this.pointDistanceRepository = pointDistanceRepository;
+        this.distanceProvider = distanceProvider;
+        this.enabled = enabled;
+    }
+
+    //rows of the point are dropped before the next matrix is read
+    public void pointChanged(int pointId) {
+        if (enabled) {
+            changedPointIds.add(pointId);
+        }
+    }
+
+    //index 0 is the courier depot, i is deliveryPointList.get(i-1)
+    public int[][] matrix(CourierDto courierDto, List<DeliveryPoint> deliveryPointList) {
+        int size = deliveryPointList.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = deliveryPointList.get(i).getLatitude();
+            longitudes[i] = deliveryPointList.get(i).getLongitude();
+        }
+        double[] depotLatitude = {courierDto.getLotitude()};
+        double[] depotLongitude = {courierDto.getLongitude()};
+
+        if (!enabled || size == 0) {
+            double[] allLatitudes = new double[size + 1];
+            double[] allLongitudes = new double[size + 1];
+            allLatitudes[0] = depotLatitude[0];
+            allLongitudes[0] = depotLongitude[0];
+            System.arraycopy(latitudes, 0, allLatitudes, 1, size);
+            System.arraycopy(longitudes, 0, allLongitudes, 1, size);
+            return distanceProvider.matrix(allLatitudes, allLongitudes);
+        }
+
+        int[][] graph = new int[size + 1][size + 1];
+        int[][] fromDepot = distanceProvider.matrix(depotLatitude, depotLongitude, latitudes, longitudes);
+        int[][] toDepot = distanceProvider.matrix(latitudes, longitudes, depotLatitude, depotLongitude);
+        for (int i = 0; i < size; i++) {
+            graph[0][i + 1] = fromDepot[0][i];
+            graph[i + 1][0] = toDepot[i][0];
+        }
+
+        Map<Integer, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            indexById.put(deliveryPointList.get(i).getId(), i);
+        }
+
+        dropChangedPoints();
+
+        boolean[][] known = new boolean[size][size];
+        for (PointDistance pointDistance
+                : pointDistanceRepository.findSubMatrix(distanceProvider.getName(), indexById.keySet())) {
+            int from = indexById.get(pointDistance.getFromId());
+            int to = indexById.get(pointDistance.getToId());
+            graph[from + 1][to + 1] = pointDistance.getDistance();
+            known[from][to] = true;
+        }
+
+        List<Integer> missing = missingPoints(known);
+        if (!missing.isEmpty()) {
+            fillMissing(missing, deliveryPointList, latitudes, longitudes, known, graph);
+        }
+        return graph;
+    }
+
+    //few points whose rows and columns cover every unknown pair, picked
+    //greedily by most unknown pairs: one moved point costs its own row and
+    //column, not the rows of everybody it is paired with
+    private static List<Integer> missingPoints(boolean[][] known) {
+        int size = known.length;
+        boolean[][] unknown = new boolean[size][size];
+        int[] unknownCount = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i != j && (!known[i][j] || !known[j][i])) {
+                    unknown[i][j] = true;
+                    unknownCount[i]++;
+                }
+            }
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        while (true) {
+            int point = -1;
+            for (int i = 0; i < size; i++) {
+                if (unknownCount[i] > 0 && (point < 0 || unknownCount[i] > unknownCount[point])) {
+                    point = i;
+                }
+            }
+            if (point < 0) {
+                return missing;
+            }
+            missing.add(point);
+            for (int j = 0; j < size; j++) {
+                if (unknown[point][j]) {
+                    unknown[point][j] = false;
+                    unknown[j][point] = false;
+                    unknownCount[j]--;
+                }
+            }
+            unknownCount[point] = 0;
+        }
+    }
+
+    private void dropChangedPoints() {
+        if (changedPointIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> changed = new HashSet<>(changedPointIds);
+        changedPointIds.removeAll(changed);
+        int deleted = pointDistanceRepository.deleteByPointIds(changed);
+        log.info("distance table: dropped {} distances of changed points {}", deleted, changed);
+    }
+
+    //rows and columns of the missing points against the whole selection,
+    //two provider calls whatever the number of missing points
+    private void fillMissing(List<Integer> missing
+            , List<DeliveryPoint> deliveryPointList
+            , double[] latitudes
+            , double[] longitudes
+            , boolean[][] known
+            , int[][] graph) {
+
+        int size = deliveryPointList.size();
+        double[] missingLatitudes = new double[missing.size()];
+        double[] missingLongitudes = new double[missing.size()];
+        boolean[] isMissing = new boolean[size];
+        for (int m = 0; m < missing.size(); m++) {
+            missingLatitudes[m] = latitudes[missing.get(m)];
+            missingLongitudes[m] = longitudes[missing.get(m)];
+            isMissing[missing.get(m)] = true;
+        }
+        int[][] rows = distanceProvider.matrix(missingLatitudes, missingLongitudes, latitudes, longitudes);
+        int[][] columns = distanceProvider.matrix(latitudes, longitudes, missingLatitudes, missingLongitudes);
+
+        String provider = distanceProvider.getName();
+        List<PointDistance> computed = new ArrayList<>();
+        for (int m = 0; m < missing.size(); m++) {
+            int point = missing.get(m);
+            for (int j = 0; j < size; j++) {
+                if (j == point) {
+                    continue;
+                }
+                if (!known[point][j]) {
+                    graph[point + 1][j + 1] = rows[m][j];
+                    computed.add(new PointDistance(provider
+                            , deliveryPointList.get(point).getId()
+                            , deliveryPointList.get(j).getId()
+                            , rows[m][j]));
+                }
+                //a pair of two missing points is already in the other one's row
+                if (!known[j][point] && !isMissing[j]) {
+                    graph[j + 1][point + 1] = columns[j][m];
+                    computed.add(new PointDistance(provider
+                            , deliveryPointList.get(j).getId()
+                            , deliveryPointList.get(point).getId()
+                            , columns[j][m]));
+                }
+            }
+        }
+        insert(computed, missing, deliveryPointList);
+    }
+
+    //another solve may have stored some of the pairs since they were read,
+    //those are left out; pairs of a point moved meanwhile are not stored at all
+    private void insert(List<PointDistance> computed
+            , List<Integer> missing
+            , List<DeliveryPoint> deliveryPointList) {
+
+        List<Integer> ids = new ArrayList<>();
+        deliveryPointList.forEach(deliveryPoint -> ids.add(deliveryPoint.getId()));
+        List<Integer> missingIds = new ArrayList<>();
+        missing.forEach(point -> missingIds.add(deliveryPointList.get(point).getId()));
+
+        synchronized (insertLock) {
+            Set<PointDistanceId> stored = new HashSet<>();
+            pointDistanceRepository.findRowsAndColumns(distanceProvider.getName(), missingIds, ids)
+                    .forEach(pointDistance -> stored.add(pointDistance.getId()));
+            List<PointDistance> inserted = new ArrayList<>();
+            for (PointDistance pointDistance : computed) {
+                if (!stored.contains(pointDistance.getId())
+                        && !changedPointIds.contains(pointDistance.getFromId())
+                        && !changedPointIds.contains(pointDistance.getToId())) {
+                    inserted.add(pointDistance);
+                }
+            }
+            pointDistanceRepository.saveAll(inserted);
+            log.info("distance table: stored {} distances for {} points", inserted.size(), missing.size());
+        }
+    }
+}
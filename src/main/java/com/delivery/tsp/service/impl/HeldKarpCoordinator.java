@@ -0,0 +1,72 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.utils.HeldKarpSolver;
+import com.delivery.tsp.utils.ProblemInstance;
+import com.delivery.tsp.utils.SolveBudget;
+import com.delivery.tsp.utils.TimeWindowPruning;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//limits of the exact subset DP (HeldKarpSolver): the two hot layers stay
+//off-heap within memoryLimitMb, all layers are spilled to workDir. The table
+//is n 2^(n-1) ints, 7 GB at 27 points and 64 GB at 30, so the disk decides
+//what runs: a mapped write to a full disk kills the JVM, a solve only starts
+//when maxDiskMb and the free space of workDir both hold the table
+@Component
+public class HeldKarpCoordinator {
+
+    private static final long MB = 1024 * 1024;
+
+    private final boolean enabled;
+    private final long memoryLimitMb;
+    private final long maxDiskMb;
+    private final Path workDir;
+    private final double transitionsPerSecond;
+    private final int blockSubsets;
+
+    public HeldKarpCoordinator(@Value("${tsp.held-karp.enabled:true}") boolean enabled
+            , @Value("${tsp.held-karp.memory-limit-mb:4096}") long memoryLimitMb
+            , @Value("${tsp.held-karp.max-disk-mb:65536}") long maxDiskMb
+            , @Value("${tsp.held-karp.work-dir:${java.io.tmpdir}/tsp-held-karp}") String workDir
+            , @Value("${tsp.held-karp.transitions-per-second:150000000}") double transitionsPerSecond
+            , @Value("${tsp.held-karp.block-subsets:4096}") int blockSubsets) {
+        this.enabled = enabled;
+        this.memoryLimitMb = memoryLimitMb;
+        this.maxDiskMb = maxDiskMb;
+        this.workDir = Paths.get(workDir);
+        this.transitionsPerSecond = transitionsPerSecond;
+        this.blockSubsets = blockSubsets;
+    }
+
+    public boolean isEnabledFor(int points) {
+        if (!enabled || points < 1 || points > HeldKarpSolver.MAX_POINTS) {
+            return false;
+        }
+        long tableBytes = HeldKarpSolver.tableBytes(points);
+        return tableBytes <= maxDiskMb * MB && tableBytes <= usableBytes();
+    }
+
+    //transitions per second are per core, the layers run on all of them
+    public double estimatedSeconds(int points) {
+        return HeldKarpSolver.transitions(points)
+                / (transitionsPerSecond * Runtime.getRuntime().availableProcessors());
+    }
+
+    //shortest stop order over the arcs the windows leave, see HeldKarpSolver
+    public int[] solve(ProblemInstance instance, TimeWindowPruning pruning, SolveBudget solveBudget) {
+        return new HeldKarpSolver(instance, pruning, memoryLimitMb * MB, workDir, blockSubsets).solve(solveBudget);
+    }
+
+    //workDir is created on the first solve, until then its nearest parent counts
+    private long usableBytes() {
+        for (Path path = workDir.toAbsolutePath(); path != null; path = path.getParent()) {
+            if (path.toFile().exists()) {
+                return path.toFile().getUsableSpace();
+            }
+        }
+        return 0;
+    }
+}
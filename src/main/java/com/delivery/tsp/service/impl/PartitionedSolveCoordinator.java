@@ -0,0 +1,169 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.dto.SolveCheckpoint;
+import com.delivery.tsp.dto.SolveProblem;
+import com.delivery.tsp.utils.PermutationRank;
+import com.delivery.tsp.utils.RangeSolveWorker;
+import com.delivery.tsp.utils.RangeSolver;
+import com.delivery.tsp.utils.SolveBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//splits the exhaustive search into permutation rank ranges and runs each in
+//its own local worker process (RangeSolveWorker), standing in for nodes.
+//Problem and checkpoints live in workDir under the hash of the serialized
+//problem (RangeSolver.problemKey), so a solve interrupted by a redeploy
+//resumes where its workers stopped, and one whose graph changed starts over.
+//When the budget runs out the workers are killed and the checkpoints merged
+@Component
+public class PartitionedSolveCoordinator {
+
+    private static Logger log = LoggerFactory.getLogger(PartitionedSolveCoordinator.class);
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final int workers;
+    private final int minPoints;
+    private final Path workDir;
+    private final long checkpointIntervalMs;
+
+    public PartitionedSolveCoordinator(@Value("${tsp.partition.workers:0}") int workers
+            , @Value("${tsp.partition.min-points:11}") int minPoints
+            , @Value("${tsp.partition.work-dir:${java.io.tmpdir}/tsp-partitions}") String workDir
+            , @Value("${tsp.partition.checkpoint-interval-ms:30000}") long checkpointIntervalMs) {
+        this.workers = workers;
+        this.minPoints = minPoints;
+        this.workDir = Paths.get(workDir);
+        this.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    //small instances finish before a worker JVM would have started
+    public boolean isEnabledFor(int points) {
+        return workers > 0 && points >= minPoints && points <= PermutationRank.MAX_LENGTH;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public SolveCheckpoint solve(SolveProblem problem, SolveBudget solveBudget) {
+        try {
+            return run(problem, solveBudget);
+        } catch (IOException e) {
+            throw new RuntimeException("Partitioned solve failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Partitioned solve interrupted", e);
+        }
+    }
+
+    private SolveCheckpoint run(SolveProblem problem, SolveBudget solveBudget) throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        String fingerprint = problem.getFingerprint();
+        String key = RangeSolver.problemKey(problem);
+        Path problemFile = workDir.resolve(key + ".problem.json");
+        RangeSolver.writeProblem(problem, problemFile);
+
+        long total = PermutationRank.factorial(problem.getGraph().length - 1);
+        int partitions = (int) Math.min(workers, total);
+        long[] bounds = new long[partitions + 1];
+        for (int i = 0; i <= partitions; i++) {
+            bounds[i] = total / partitions * i + Math.min(i, total % partitions);
+        }
+
+        Path[] checkpointFiles = new Path[partitions];
+        Process[] processes = new Process[partitions];
+        for (int i = 0; i < partitions; i++) {
+            checkpointFiles[i] = workDir.resolve(key + "." + i + "-of-" + partitions + ".json");
+            SolveCheckpoint checkpoint = RangeSolver.readCheckpoint(checkpointFiles[i]);
+            if (checkpoint != null && checkpoint.isComplete() && checkpoint.getToRank() == bounds[i + 1]) {
+                continue;
+            }
+            processes[i] = new ProcessBuilder(workerCommand(problemFile, checkpointFiles[i], bounds[i], bounds[i + 1]))
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile(key, i, partitions).toFile()))
+                    .start();
+        }
+        log.info("partitioned solve {}: {} permutations over {} workers", fingerprint, total, partitions);
+
+        try {
+            waitFor(processes, solveBudget);
+        } finally {
+            for (Process process : processes) {
+                if (process != null && process.isAlive()) {
+                    process.destroy();
+                    process.waitFor();
+                }
+            }
+        }
+
+        List<SolveCheckpoint> checkpoints = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            SolveCheckpoint checkpoint = RangeSolver.readCheckpoint(checkpointFiles[i]);
+            checkpoints.add(checkpoint != null ? checkpoint : new SolveCheckpoint(fingerprint, bounds[i], bounds[i + 1]));
+        }
+        SolveCheckpoint merged = RangeSolver.merge(fingerprint, checkpoints);
+        log.info("partitioned solve {}: {}", fingerprint, merged);
+
+        //finished files are of no use any more, unfinished ones are kept to resume from
+        if (merged.isComplete()) {
+            for (int i = 0; i < partitions; i++) {
+                Files.deleteIfExists(checkpointFiles[i]);
+                Files.deleteIfExists(logFile(key, i, partitions));
+            }
+            Files.deleteIfExists(problemFile);
+        }
+        return merged;
+    }
+
+    private Path logFile(String key, int partition, int partitions) {
+        return workDir.resolve(key + "." + partition + "-of-" + partitions + ".log");
+    }
+
+    private void waitFor(Process[] processes, SolveBudget solveBudget) throws InterruptedException {
+        for (int i = 0; i < processes.length; i++) {
+            while (processes[i] != null && processes[i].isAlive()) {
+                if (solveBudget.isExhausted(0)) {
+                    return;
+                }
+                processes[i].waitFor(Math.min(POLL_INTERVAL_MS, solveBudget.remainingMillis()), TimeUnit.MILLISECONDS);
+            }
+            if (processes[i] != null && processes[i].exitValue() != 0) {
+                throw new RuntimeException("Partition worker " + i + " failed with exit code "
+                        + processes[i].exitValue() + ", see its log in " + workDir);
+            }
+        }
+    }
+
+    //same JVM and class path as this application. Inside an executable jar the
+    //classes live under BOOT-INF, so the worker goes through the jar's PropertiesLauncher
+    private List<String> workerCommand(Path problemFile, Path checkpointFile, long fromRank, long toRank) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", classPath));
+        if (!classPath.contains(File.pathSeparator) && classPath.endsWith(".jar")) {
+            command.add("-Dloader.main=" + RangeSolveWorker.class.getName());
+            command.add("org.springframework.boot.loader.PropertiesLauncher");
+        } else {
+            command.add(RangeSolveWorker.class.getName());
+        }
+        command.add(problemFile.toString());
+        command.add(checkpointFile.toString());
+        command.add(String.valueOf(fromRank));
+        command.add(String.valueOf(toRank));
+        command.add(String.valueOf(checkpointIntervalMs));
+        return command;
+    }
+}
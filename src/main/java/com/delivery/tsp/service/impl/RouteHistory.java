@@ -0,0 +1,193 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteSchedule;
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.model.HistoricalRoute;
+import com.delivery.tsp.repository.HistoricalRouteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//solved routes per courier and depot (HistoricalRoute). Couriers serve mostly
+//the same customers every day, so the latest stored route whose point set is
+//most like today's (Jaccard similarity of the ids) is a good first incumbent
+//once it is adapted to today's points. Only feasible routes are stored, on
+//one background thread so the solve does not wait for the write; only the
+//last maxRoutes routes of a courier and depot are kept, a route equal to the
+//latest one is not stored again. History is a hint only: a failing read or
+//write is logged and the solve goes on without it
+@Component
+public class RouteHistory {
+
+    private static Logger log = LoggerFactory.getLogger(RouteHistory.class);
+
+    //routes waiting to be written, more are dropped
+    private static final int WRITE_QUEUE_CAPACITY = 64;
+
+    private final HistoricalRouteRepository historicalRouteRepository;
+    private final boolean enabled;
+    private final int candidates;
+    private final double minSimilarity;
+    private final int maxRoutes;
+    //single writer, routes of one courier are stored in solve order
+    private final ThreadPoolExecutor writer;
+
+    public RouteHistory(HistoricalRouteRepository historicalRouteRepository
+            , @Value("${tsp.history.enabled:true}") boolean enabled
+            , @Value("${tsp.history.candidates:20}") int candidates
+            , @Value("${tsp.history.min-similarity:0.5}") double minSimilarity
+            , @Value("${tsp.history.max-routes:50}") int maxRoutes) {
+        this.historicalRouteRepository = historicalRouteRepository;
+        this.enabled = enabled;
+        this.candidates = candidates;
+        this.minSimilarity = minSimilarity;
+        this.maxRoutes = Math.max(1, maxRoutes);
+        this.writer = !enabled ? null : new ThreadPoolExecutor(1
+                , 1
+                , 0L
+                , TimeUnit.MILLISECONDS
+                , new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY)
+                , runnable -> {
+                    Thread thread = new Thread(runnable, "route-history-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+                , new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    //delivery point ids of the most similar stored route in visiting order,
+    //null when nothing similar enough was stored. May hold points gone today
+    public int[] mostSimilarRoute(CourierDto courierDto, List<DeliveryPoint> deliveryPointList) {
+        if (!enabled || deliveryPointList.isEmpty()) {
+            return null;
+        }
+        Set<Integer> today = deliveryPointList.stream()
+                .map(DeliveryPoint::getId)
+                .collect(Collectors.toSet());
+
+        List<HistoricalRoute> routes;
+        try {
+            routes = historicalRouteRepository.findByCourierIdAndDepotOrderBySolvedAtDesc(
+                    courierId(courierDto), depot(courierDto), PageRequest.of(0, candidates));
+        } catch (RuntimeException e) {
+            log.warn("route history not readable: {}", e.toString());
+            return null;
+        }
+
+        int[] best = null;
+        double bestSimilarity = minSimilarity;
+        boolean bestProven = false;
+        for (HistoricalRoute route : routes) {
+            int[] pointIds = parse(route.getPointIds());
+            double similarity = similarity(pointIds, today);
+            //latest first, an older route has to be strictly more similar,
+            //or as similar and proven where the chosen one is not
+            boolean better = best == null
+                    ? similarity >= bestSimilarity
+                    : (similarity > bestSimilarity
+                    || (similarity == bestSimilarity && route.isProven() && !bestProven));
+            if (better) {
+                best = pointIds;
+                bestSimilarity = similarity;
+                bestProven = route.isProven();
+            }
+        }
+        return best;
+    }
+
+    //schedule is the evaluation of the route, a late route is not stored.
+    //Returns at once, the write runs on the writer thread
+    public void record(CourierDto courierDto, int[] pointIds, RouteSchedule schedule, boolean proven) {
+        if (!enabled || pointIds == null || pointIds.length == 0 || !schedule.isFeasible()) {
+            return;
+        }
+        String courierId = courierId(courierDto);
+        String depot = depot(courierDto);
+        String route = Arrays.stream(pointIds).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        HistoricalRoute historicalRoute = new HistoricalRoute(courierId
+                , depot
+                , route
+                , schedule.getDistance()
+                , schedule.getTimeWait()
+                , schedule.getEndSecond()
+                , proven
+                , LocalDateTime.now());
+        try {
+            writer.execute(() -> write(historicalRoute));
+        } catch (RejectedExecutionException e) {
+            log.warn("route history not written, {} routes are waiting", writer.getQueue().size());
+        }
+    }
+
+    private void write(HistoricalRoute historicalRoute) {
+        String courierId = historicalRoute.getCourierId();
+        String depot = historicalRoute.getDepot();
+        String route = historicalRoute.getPointIds();
+        try {
+            List<HistoricalRoute> latest = historicalRouteRepository.findByCourierIdAndDepotOrderBySolvedAtDesc(
+                    courierId, depot, PageRequest.of(0, maxRoutes));
+            if (!latest.isEmpty() && latest.get(0).getPointIds().equals(route)) {
+                return;
+            }
+            HistoricalRoute saved = historicalRouteRepository.save(historicalRoute);
+            //the new route and the maxRoutes - 1 before it stay
+            if (latest.size() >= maxRoutes) {
+                historicalRouteRepository.deleteOlderThan(courierId, depot
+                        , maxRoutes > 1 ? latest.get(maxRoutes - 2).getId() : saved.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("route history not written: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    private static double similarity(int[] pointIds, Set<Integer> today) {
+        Set<Integer> historical = new HashSet<>();
+        Arrays.stream(pointIds).forEach(historical::add);
+        int common = 0;
+        for (int pointId : historical) {
+            if (today.contains(pointId)) {
+                common++;
+            }
+        }
+        return common / (double) (historical.size() + today.size() - common);
+    }
+
+    private static int[] parse(String pointIds) {
+        return pointIds.isEmpty()
+                ? new int[0]
+                : Arrays.stream(pointIds.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    //requests without a courier id share the history of their depot
+    private static String courierId(CourierDto courierDto) {
+        return courierDto.getCourierId() != null ? courierDto.getCourierId() : "";
+    }
+
+    //about 1 m, the same depot typed twice still matches
+    private static String depot(CourierDto courierDto) {
+        return String.format(Locale.ROOT, "%.5f,%.5f", courierDto.getLotitude(), courierDto.getLongitude());
+    }
+}
@@ -0,0 +1,131 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.dto.RouteResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//LRU + TTL cache of solved routes keyed by ProblemFingerprint.
+//Cached RouteResult instances are shared between callers and must not be modified
+@Component
+public class RouteResultCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, CacheEntry> entries;
+    //point id -> fingerprints of the cached problems that contain it
+    private final Map<Integer, Set<String>> keysByPoint = new HashMap<>();
+
+    private long hits;
+    private long misses;
+
+    public RouteResultCache(@Value("${tsp.cache.max-size:256}") int maxSize
+            , @Value("${tsp.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized RouteResult get(String fingerprint) {
+        CacheEntry entry = entries.get(fingerprint);
+        if (entry != null && System.nanoTime() - entry.expiresAtNanos >= 0) {
+            remove(fingerprint);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.routeResult;
+    }
+
+    public synchronized void put(String fingerprint, int[] pointIds, RouteResult routeResult) {
+        if (maxSize <= 0) {
+            return;
+        }
+        remove(fingerprint);
+        entries.put(fingerprint, new CacheEntry(routeResult, pointIds, System.nanoTime() + ttlNanos));
+        for (int pointId : pointIds) {
+            keysByPoint.computeIfAbsent(pointId, id -> new HashSet<>()).add(fingerprint);
+        }
+        Iterator<Map.Entry<String, CacheEntry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            Map.Entry<String, CacheEntry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue().pointIds);
+        }
+    }
+
+    //drops every cached route that visits the point
+    public synchronized void invalidatePoint(int pointId) {
+        Set<String> keys = keysByPoint.remove(pointId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            CacheEntry entry = entries.remove(key);
+            if (entry != null) {
+                unindex(key, entry.pointIds);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByPoint.clear();
+    }
+
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(String fingerprint) {
+        CacheEntry entry = entries.remove(fingerprint);
+        if (entry != null) {
+            unindex(fingerprint, entry.pointIds);
+        }
+    }
+
+    private void unindex(String fingerprint, int[] pointIds) {
+        for (int pointId : pointIds) {
+            Set<String> keys = keysByPoint.get(pointId);
+            if (keys != null && keys.remove(fingerprint) && keys.isEmpty()) {
+                keysByPoint.remove(pointId);
+            }
+        }
+    }
+
+    private static class CacheEntry {
+        private final RouteResult routeResult;
+        private final int[] pointIds;
+        private final long expiresAtNanos;
+
+        private CacheEntry(RouteResult routeResult, int[] pointIds, long expiresAtNanos) {
+            this.routeResult = routeResult;
+            this.pointIds = pointIds;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteResult;
+import com.delivery.tsp.service.DeliveryPointService;
+import com.delivery.tsp.service.RouteSolveService;
+import com.delivery.tsp.service.SolverSaturatedException;
+import com.delivery.tsp.utils.CancellationToken;
+import com.delivery.tsp.utils.SolveBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//bounded solver pool for the HTTP mode.
+//A request is rejected straight away when all solver threads are busy and
+//the queue is full; identical requests (same courier and time limit)
+//already in flight share one solve
+@Service
+@ConditionalOnProperty(name = "tsp.http.enabled", havingValue = "true")
+public class RouteSolveServiceImpl implements RouteSolveService {
+
+    private static Logger log = LoggerFactory.getLogger(RouteSolveServiceImpl.class);
+
+    private final DeliveryPointService deliveryPointService;
+    private final ThreadPoolExecutor solverPool;
+    private final Map<SolveKey, InFlightSolve> inFlight = new ConcurrentHashMap<>();
+
+    public RouteSolveServiceImpl(DeliveryPointService deliveryPointService
+            , @Value("${tsp.http.solver-threads:0}") int solverThreads
+            , @Value("${tsp.http.queue-capacity:16}") int queueCapacity) {
+
+        this.deliveryPointService = deliveryPointService;
+        int threads = solverThreads > 0 ? solverThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.solverPool = new ThreadPoolExecutor(threads
+                , threads
+                , 0L
+                , TimeUnit.MILLISECONDS
+                , new ArrayBlockingQueue<>(Math.max(1, queueCapacity))
+                , runnable -> {
+                    Thread thread = new Thread(runnable, "route-solver-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+                , new ThreadPoolExecutor.AbortPolicy());
+        log.info("route solver pool: {} threads, queue {}", threads, queueCapacity);
+    }
+
+    @Override
+    public CompletableFuture<RouteResult> submit(CourierDto courierDto, long timeLimitMs) {
+        //a request with another time limit gets its own solve, a shared one
+        //would answer it too early or too late
+        SolveKey solveKey = new SolveKey(courierDto, timeLimitMs);
+        InFlightSolve solve;
+        try {
+            solve = inFlight.computeIfAbsent(solveKey, key -> startSolve(courierDto, timeLimitMs));
+        } catch (RejectedExecutionException e) {
+            throw new SolverSaturatedException("Route solver is saturated, retry later");
+        }
+        solve.future.whenComplete((routeResult, throwable) -> inFlight.remove(solveKey, solve));
+        return solve.future;
+    }
+
+    @Override
+    public CompletableFuture<List<RouteResult>> submitAlternatives(CourierDto courierDto, int k, long timeLimitMs) {
+        SolveBudget solveBudget = SolveBudget.ofMillis(timeLimitMs);
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> deliveryPointService.solveAlternatives(courierDto, k, solveBudget)
+                    , solverPool);
+        } catch (RejectedExecutionException e) {
+            throw new SolverSaturatedException("Route solver is saturated, retry later");
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    //the deadline starts at submission, time spent in the queue counts against the limit
+    private InFlightSolve startSolve(CourierDto courierDto, long timeLimitMs) {
+        CancellationToken cancellationToken = new CancellationToken();
+        SolveBudget solveBudget = SolveBudget.of(timeLimitMs, 0, cancellationToken);
+        CompletableFuture<RouteResult> future = CompletableFuture.supplyAsync(
+                () -> deliveryPointService.solve(courierDto, solveBudget)
+                , solverPool);
+        return new InFlightSolve(future, cancellationToken);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        inFlight.values().forEach(solve -> solve.cancellationToken.cancel());
+        solverPool.shutdown();
+    }
+
+    private static class SolveKey {
+        private final CourierDto courierDto;
+        private final long timeLimitMs;
+
+        private SolveKey(CourierDto courierDto, long timeLimitMs) {
+            this.courierDto = courierDto;
+            this.timeLimitMs = timeLimitMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SolveKey solveKey = (SolveKey) o;
+            return timeLimitMs == solveKey.timeLimitMs && courierDto.equals(solveKey.courierDto);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(courierDto, timeLimitMs);
+        }
+    }
+
+    private static class InFlightSolve {
+        private final CompletableFuture<RouteResult> future;
+        private final CancellationToken cancellationToken;
+
+        private InFlightSolve(CompletableFuture<RouteResult> future, CancellationToken cancellationToken) {
+            this.future = future;
+            this.cancellationToken = cancellationToken;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.utils.CancellationToken;
+import com.delivery.tsp.utils.LowerBound;
+import com.delivery.tsp.utils.SharedIncumbent;
+import com.delivery.tsp.utils.SolveBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//races several solver strategies on the same problem, one thread each.
+//They share one incumbent, so every route found tightens the bound of the
+//others. The race ends when a strategy proves its route optimal, the
+//incumbent reaches the lower bound or the gap tolerance, or the budget
+//runs out; the remaining strategies are then cancelled
+@Component
+public class SolverPortfolio {
+
+    private static Logger log = LoggerFactory.getLogger(SolverPortfolio.class);
+
+    private static final long POLL_INTERVAL_MS = 5;
+
+    //runs until done or cancelled through the budget,
+    //returns true when the incumbent is proven optimal
+    public interface Strategy {
+        boolean run(SharedIncumbent incumbent, SolveBudget solveBudget);
+    }
+
+    private final boolean enabled;
+    private final ThreadPoolExecutor portfolioPool;
+
+    public SolverPortfolio(@Value("${tsp.portfolio.enabled:false}") boolean enabled
+            , @Value("${tsp.portfolio.threads:0}") int portfolioThreads) {
+
+        this.enabled = enabled;
+        if (!enabled) {
+            this.portfolioPool = null;
+            return;
+        }
+        int threads = portfolioThreads > 0 ? portfolioThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.portfolioPool = new ThreadPoolExecutor(threads
+                , threads
+                , 0L
+                , TimeUnit.MILLISECONDS
+                , new LinkedBlockingQueue<>()
+                , runnable -> {
+                    Thread thread = new Thread(runnable, "portfolio-solver-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("solver portfolio: {} threads", threads);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //returns true when the incumbent left in incumbent is proven optimal
+    public boolean solve(Map<String, Strategy> strategies
+            , SharedIncumbent incumbent
+            , int lowerBound
+            , SolveBudget solveBudget) {
+
+        CancellationToken cancellationToken = new CancellationToken();
+        long timeLimitMillis = solveBudget.remainingMillis() == Long.MAX_VALUE ? 0 : solveBudget.remainingMillis();
+        long maxIterations = solveBudget.getMaxIterations() == Long.MAX_VALUE ? 0 : solveBudget.getMaxIterations();
+        if (solveBudget.remainingMillis() == 0) {
+            return false;
+        }
+
+        ExecutorCompletionService<Boolean> completion = new ExecutorCompletionService<>(portfolioPool);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        strategies.forEach((name, strategy) -> futures.add(completion.submit(
+                () -> strategy.run(incumbent, SolveBudget.of(timeLimitMillis, maxIterations, cancellationToken)))));
+
+        boolean proven = false;
+        int finished = 0;
+        try {
+            while (finished < futures.size()) {
+                Future<Boolean> done = completion.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    finished++;
+                    if (isProven(done)) {
+                        proven = true;
+                        break;
+                    }
+                }
+                //no route can be shorter than the lower bound
+                if (incumbent.getDistance() <= lowerBound) {
+                    proven = true;
+                    break;
+                }
+                if (solveBudget.isWithinGap(LowerBound.gap(incumbent.getDistance(), lowerBound))
+                        || solveBudget.getCancellationToken().isCancelled()
+                        || solveBudget.remainingMillis() == 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cancellationToken.cancel();
+        }
+
+        //the losers stop at their next budget check
+        for (Future<Boolean> future : futures) {
+            isProven(future);
+        }
+        log.info("solver portfolio: {} won with {}km, proven {}"
+                , incumbent.getStrategy(), incumbent.getDistance(), proven);
+        return proven;
+    }
+
+    private static boolean isProven(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.warn("portfolio strategy failed: {}", e.getCause().toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (portfolioPool != null) {
+            portfolioPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.delivery.tsp.service.impl;
+
+import com.delivery.tsp.utils.ProblemInstance;
+import com.delivery.tsp.utils.SolveBudget;
+import com.delivery.tsp.utils.TimeWindowPruning;
+import com.delivery.tsp.utils.WindowOrderRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//picks the engine of one solve from what it is predicted to cost instead of
+//always enumerating permutations:
+// - exhaustive: Knuth's random probe estimate of the iterations of
+//   HamiltonCycle.search, so infeasible arcs and precedences from the windows
+//   shrink it, mirror skipping halves it
+// - window order DP: the displacement that excludes no feasible route (the
+//   window overlap) gives its states n k 2^(k-1) and their memory
+// - Held-Karp: n^2 2^(n-2) transitions whatever the windows, when its table
+//   fits the disk (HeldKarpCoordinator). Its route ignores the windows
+//   beyond the pruning, so the window order DP goes first when it fits
+//Seconds are the estimate over a calibrated rate, without a deadline
+//max-exact-seconds is the limit. Only the exhaustive search also gets the
+//least waiting and earliest finish exact, so with all-objectives it is
+//preferred whenever it fits, otherwise the cheaper of the exact engines
+//runs (the DP proves the shortest distance). When nothing exact fits and the caller
+//bounded the solve (time, iterations or gap tolerance) the best effort
+//engines run, otherwise the solve is refused: a factorial search never
+//starts unannounced
+@Component
+public class SolverSelector {
+
+    public enum Engine { EXHAUSTIVE, PARTITIONED, PORTFOLIO, WINDOW_ORDER, HELD_KARP, LOCAL_SEARCH }
+
+    private static final int PROBES = 256;
+    //same instance, same decision
+    private static final long PROBE_SEED = 42;
+    //one Pareto label with its list and map entry share
+    private static final int LABEL_BYTES = 96;
+
+    private final SolverPortfolio solverPortfolio;
+    private final PartitionedSolveCoordinator partitionedSolveCoordinator;
+    private final HeldKarpCoordinator heldKarpCoordinator;
+    private final boolean enabled;
+    private final boolean allObjectives;
+    private final long maxExactSeconds;
+    private final double routesPerSecond;
+    private final double labelsPerSecond;
+
+    public SolverSelector(SolverPortfolio solverPortfolio
+            , PartitionedSolveCoordinator partitionedSolveCoordinator
+            , HeldKarpCoordinator heldKarpCoordinator
+            , @Value("${tsp.selector.enabled:true}") boolean enabled
+            , @Value("${tsp.selector.all-objectives:true}") boolean allObjectives
+            , @Value("${tsp.selector.max-exact-seconds:600}") long maxExactSeconds
+            , @Value("${tsp.selector.routes-per-second:2000000}") double routesPerSecond
+            , @Value("${tsp.selector.labels-per-second:5000000}") double labelsPerSecond) {
+        this.solverPortfolio = solverPortfolio;
+        this.partitionedSolveCoordinator = partitionedSolveCoordinator;
+        this.heldKarpCoordinator = heldKarpCoordinator;
+        this.enabled = enabled;
+        this.allObjectives = allObjectives;
+        this.maxExactSeconds = maxExactSeconds;
+        this.routesPerSecond = routesPerSecond;
+        this.labelsPerSecond = labelsPerSecond;
+    }
+
+    public Selection select(ProblemInstance instance, TimeWindowPruning pruning, SolveBudget solveBudget) {
+        int points = instance.size() - 1;
+        if (!enabled) {
+            //as configured, no estimates
+            if (solverPortfolio.isEnabled()) {
+                return new Selection(Engine.PORTFOLIO, 0, true, "selector disabled");
+            }
+            if (partitionedSolveCoordinator.isEnabledFor(points)) {
+                return new Selection(Engine.PARTITIONED, 0, true, "selector disabled");
+            }
+            return new Selection(Engine.EXHAUSTIVE, 0, true, "selector disabled");
+        }
+
+        double seconds = availableSeconds(solveBudget);
+        double routes = exhaustiveRoutes(instance, pruning);
+        boolean partitioned = partitionedSolveCoordinator.isEnabledFor(points);
+        //range workers enumerate both orientations
+        double exhaustiveSeconds = partitioned
+                ? routes / (routesPerSecond * partitionedSolveCoordinator.getWorkers())
+                : routes / mirrorFactor(instance, pruning) / routesPerSecond;
+
+        int k = instance.isTimeDependent()
+                ? Integer.MAX_VALUE
+                : new WindowOrderRouter(instance).exactDisplacement(pruning);
+        double states = windowOrderStates(points, k);
+        //k moves out of every state
+        double windowOrderSeconds = states * Math.min(k, Math.max(1, points)) / labelsPerSecond;
+        boolean windowOrderFits = k <= WindowOrderRouter.MAX_DISPLACEMENT
+                && states * LABEL_BYTES <= Runtime.getRuntime().maxMemory() / 2
+                //the DP returns nothing when its budget runs out, keep a margin
+                && windowOrderSeconds <= seconds / 2;
+
+        double heldKarpSeconds = heldKarpCoordinator.estimatedSeconds(points);
+        boolean heldKarpFits = heldKarpCoordinator.isEnabledFor(points) && heldKarpSeconds <= seconds / 2;
+
+        String estimate = String.format("%d points, ~%.3g routes %.3gs, window order k=%s %.3gs, held-karp %.3gs, %.3gs available"
+                , points, routes, exhaustiveSeconds
+                , k == Integer.MAX_VALUE ? "-" : String.valueOf(k), windowOrderSeconds, heldKarpSeconds, seconds);
+
+        double dynamicSeconds = windowOrderFits ? windowOrderSeconds
+                : heldKarpFits ? heldKarpSeconds : Double.POSITIVE_INFINITY;
+        boolean exhaustiveFirst = allObjectives || exhaustiveSeconds <= dynamicSeconds;
+        if (exhaustiveSeconds <= seconds && exhaustiveFirst) {
+            if (solverPortfolio.isEnabled()) {
+                return new Selection(Engine.PORTFOLIO, 0, true, estimate);
+            }
+            return new Selection(partitioned ? Engine.PARTITIONED : Engine.EXHAUSTIVE, 0, true, estimate);
+        }
+        if (windowOrderFits) {
+            return new Selection(Engine.WINDOW_ORDER, Math.max(1, k), true, estimate);
+        }
+        if (heldKarpFits) {
+            return new Selection(Engine.HELD_KARP, 0, true, estimate);
+        }
+        requireBounded(solveBudget, estimate);
+        //the portfolio stops on the deadline only
+        if (solverPortfolio.isEnabled() && solveBudget.remainingMillis() != Long.MAX_VALUE) {
+            return new Selection(Engine.PORTFOLIO, 0, false, estimate);
+        }
+        return new Selection(Engine.LOCAL_SEARCH, 0, false, estimate);
+    }
+
+    //for callers that can only enumerate (k best alternatives)
+    public void checkEnumeration(ProblemInstance instance, TimeWindowPruning pruning, SolveBudget solveBudget) {
+        if (!enabled) {
+            return;
+        }
+        double routes = exhaustiveRoutes(instance, pruning) / mirrorFactor(instance, pruning);
+        double seconds = availableSeconds(solveBudget);
+        if (routes / routesPerSecond > seconds) {
+            requireBounded(solveBudget, String.format("%d points, ~%.3g routes %.3gs, %.3gs available"
+                    , instance.size() - 1, routes, routes / routesPerSecond, seconds));
+        }
+    }
+
+    private void requireBounded(SolveBudget solveBudget, String estimate) {
+        boolean bounded = solveBudget.remainingMillis() != Long.MAX_VALUE
+                || solveBudget.getMaxIterations() != Long.MAX_VALUE
+                || solveBudget.getGapTolerance() >= 0;
+        if (!bounded) {
+            throw new RuntimeException("No exact solver fits (" + estimate
+                    + "), give a time limit or a gap tolerance for a best effort route");
+        }
+    }
+
+    private double availableSeconds(SolveBudget solveBudget) {
+        long remainingMillis = solveBudget.remainingMillis();
+        return remainingMillis == Long.MAX_VALUE ? maxExactSeconds : remainingMillis / 1000.0;
+    }
+
+    //Knuth's estimator: random walks from the depot through feasible
+    //children. At every level the children cut by an infeasible arc or a
+    //missing predecessor are one iteration each (a skipped prefix), the walk
+    //multiplies the number of feasible ones
+    private static double exhaustiveRoutes(ProblemInstance instance, TimeWindowPruning pruning) {
+        int points = instance.size() - 1;
+        SplittableRandom random = new SplittableRandom(PROBE_SEED);
+        int[] remaining = new int[points];
+        int[] feasible = new int[points];
+        long[] visited = new long[pruning.visitedWords()];
+        double total = 0;
+        for (int probe = 0; probe < PROBES; probe++) {
+            for (int i = 0; i < points; i++) {
+                remaining[i] = i + 1;
+            }
+            int left = points;
+            int last = 0;
+            Arrays.fill(visited, 0L);
+            visited[0] = 1L;
+            double width = 1;
+            double iterations = 0;
+            while (left > 0) {
+                int count = 0;
+                for (int i = 0; i < left; i++) {
+                    int stop = remaining[i];
+                    if (!pruning.isInfeasibleArc(last, stop) && pruning.canVisit(stop, visited)) {
+                        feasible[count++] = i;
+                    }
+                }
+                iterations += width * (left - count);
+                if (count == 0) {
+                    width = 0;
+                    break;
+                }
+                width *= count;
+                int chosen = feasible[random.nextInt(count)];
+                last = remaining[chosen];
+                visited[last >>> 6] |= 1L << last;
+                remaining[chosen] = remaining[--left];
+            }
+            total += iterations + width;
+        }
+        return total / PROBES;
+    }
+
+    private static double mirrorFactor(ProblemInstance instance, TimeWindowPruning pruning) {
+        if (!pruning.isOrderIndependent()) {
+            return 1;
+        }
+        for (int i = 0; i < instance.size(); i++) {
+            for (int j = i + 1; j < instance.size(); j++) {
+                if (instance.distance(i, j) != instance.distance(j, i)) {
+                    return 1;
+                }
+            }
+        }
+        return 2;
+    }
+
+    //n k 2^(k-1), one label each when times do not conflict
+    private static double windowOrderStates(int points, int k) {
+        if (k == Integer.MAX_VALUE) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int displacement = Math.min(k, Math.max(1, points));
+        return (double) points * displacement * Math.pow(2, displacement - 1);
+    }
+
+    public static final class Selection {
+        private final Engine engine;
+        //WINDOW_ORDER only
+        private final int maxDisplacement;
+        //a completed run proves the shortest route (HELD_KARP: if it is on time)
+        private final boolean exact;
+        private final String estimate;
+
+        public Selection(Engine engine, int maxDisplacement, boolean exact, String estimate) {
+            this.engine = engine;
+            this.maxDisplacement = maxDisplacement;
+            this.exact = exact;
+            this.estimate = estimate;
+        }
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public int getMaxDisplacement() {
+            return maxDisplacement;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+
+        @Override
+        public String toString() {
+            return engine + (engine == Engine.WINDOW_ORDER ? " k=" + maxDisplacement : "")
+                    + (exact ? " (exact)" : " (best effort)") + ": " + estimate;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.delivery.tsp.utils;
+
+//equirectangular distance around a reference latitude with cos(lat) computed once.
+//
+//Against haversine the error has two parts. The east-west scale uses
+//cos(reference) instead of the cosine of the points' own latitudes: for
+//points within maxLatitudeOffset (delta, radians) of the reference that is
+//delta^2/2 + |tan(reference)|*delta relative, to first order. Ignoring the
+//earth's curvature adds about (d/R)^2 relative. The two terms are not a
+//proven bound: errorMargin() takes 1.5 times their sum plus one meter for
+//floating point, an empirical margin that ApproximateDistanceTest checks on
+//random pairs up to 70 degrees of latitude, half a degree off the reference
+//and a degree of longitude apart (the largest error there uses about 2/3 of
+//it). Far outside that range the margin may not hold
+public class ApproximateDistance {
+
+    private static final double EARTH_RADIUS = 6371000; //meters
+    private static final double SAFETY_FACTOR = 1.5;
+
+    private final double cosReference;
+    private final double latitudeError;
+
+    public ApproximateDistance(double referenceLatitude, double maxLatitudeOffset) {
+        double reference = Math.toRadians(referenceLatitude);
+        double delta = Math.toRadians(Math.abs(maxLatitudeOffset));
+        this.cosReference = Math.cos(reference);
+        this.latitudeError = delta * delta / 2 + Math.abs(Math.tan(reference)) * delta;
+    }
+
+    //reference in the middle of the latitudes, offset half their span
+    public static ApproximateDistance around(double... latitudes) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (double latitude : latitudes) {
+            min = Math.min(min, latitude);
+            max = Math.max(max, latitude);
+        }
+        return new ApproximateDistance((min + max) / 2, (max - min) / 2);
+    }
+
+    public double meters(double lat1
+            , double lng1
+            , double lat2
+            , double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        //the shorter way around, a pair across the 180th meridian is close
+        double dLng = Math.toRadians(Math.IEEEremainder(lng2 - lng1, 360)) * cosReference;
+        return EARTH_RADIUS * Math.sqrt(dLat * dLat + dLng * dLng);
+    }
+
+    public double errorMargin(double approximateMeters) {
+        double curvature = approximateMeters / EARTH_RADIUS;
+        return approximateMeters * SAFETY_FACTOR * (latitudeError + curvature * curvature) + 1;
+    }
+
+    //smallest and largest value Distance.distFrom can return for this pair
+    public int[] kilometerRange(double lat1
+            , double lng1
+            , double lat2
+            , double lng2) {
+        double approximate = meters(lat1, lng1, lat2, lng2);
+        double margin = errorMargin(approximate);
+        return new int[]{
+                (int) Math.round(Math.max(0, approximate - margin) / 1000)
+                , (int) Math.round((approximate + margin) / 1000)};
+    }
+}
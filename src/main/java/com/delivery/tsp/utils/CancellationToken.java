@@ -0,0 +1,16 @@
+package com.delivery.tsp.utils;
+
+//shared flag a caller flips to stop a running solve;
+//solvers only read it, so the check is one volatile load
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,59 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.CourierJson;
+
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+//courier.json -> CourierDto, shared by the command line runner and the HTTP controller
+public class CourierConverter {
+
+    public static void validateCourierSpeedJson(CourierJson courierJson){
+        int courierSpeed=courierJson.getSpeed();
+
+        if(courierSpeed<=0){
+            throw new RuntimeException("Courier speed must be >0");
+        }
+    }
+
+    public static CourierDto convertCourierJsonToCourierDto(CourierJson courierJson){
+
+        CourierDto courierDto=new CourierDto();
+        courierDto.setBeginWorkDay(LocalTime.of(
+                getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.HOURS)
+                ,getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.MINUTES)
+                ,getSplitTime(courierJson.getBeginWorkDay(),TimeUnit.SECONDS)));
+
+        courierDto.setEndWorkDay(LocalTime.of(
+                getSplitTime(courierJson.getEndWorkDay(),TimeUnit.HOURS)
+                ,getSplitTime(courierJson.getEndWorkDay(),TimeUnit.MINUTES)
+                ,getSplitTime(courierJson.getEndWorkDay(),TimeUnit.SECONDS)));
+
+        courierDto.setSpendTime(courierJson.getSpendTime());
+        courierDto.setSpeed(courierJson.getSpeed());
+        courierDto.setLotitude(courierJson.getLotitude());
+        courierDto.setLongitude(courierJson.getLongitude());
+        courierDto.setCourierId(courierJson.getCourierId());
+
+        return courierDto;
+    }
+
+    private static int getSplitTime(String strDate,TimeUnit timeUnit ){
+
+        String[] split = strDate.split(":");
+
+        int hour=Integer.valueOf(split[0]);
+        int minute=Integer.valueOf(split[1]);
+        int second=Integer.valueOf(split[2]);
+
+        if(timeUnit==TimeUnit.HOURS)
+            return hour;
+        else if(timeUnit==TimeUnit.MINUTES)
+            return minute;
+        else if (timeUnit==TimeUnit.SECONDS)
+            return second;
+        else
+            throw new IllegalArgumentException("Wronge time part");
+    }
+}
@@ -9,6 +9,16 @@ public class Distance {
             , double lat2
             , double lng2) {
 
+        int dist = (int) Math.round (metersFrom(lat1, lng1, lat2, lng2)/1000);
+
+        return dist;
+    }
+
+    public static double metersFrom(double lat1
+            , double lng1
+            , double lat2
+            , double lng2) {
+
         double earthRadius = 6371000; //meters
         double dLat = Math.toRadians(lat2-lat1);
         double dLng = Math.toRadians(lng2-lng1);
@@ -16,9 +26,8 @@ public class Distance {
                 Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
                         Math.sin(dLng/2) * Math.sin(dLng/2);
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        int dist = (int) Math.round (earthRadius * c/1000);
 
-        return dist;
+        return earthRadius * c;
     }
 
     public static String secondsToHours(int seconds){
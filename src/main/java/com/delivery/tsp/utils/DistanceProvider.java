@@ -0,0 +1,17 @@
+package com.delivery.tsp.utils;
+
+//source of the km matrix the solvers work on.
+//Row / column 0 is the courier depot, i is the i-th location passed in
+public interface DistanceProvider {
+
+    int[][] matrix(double[] latitudes, double[] longitudes);
+
+    //from locations x to locations, for filling single rows and columns of a
+    //stored distance table; entry [i][j] means the same as in matrix()
+    int[][] matrix(double[] fromLatitudes
+            , double[] fromLongitudes
+            , double[] toLatitudes
+            , double[] toLongitudes);
+
+    String getName();
+}
@@ -1,136 +1,274 @@
 package com.delivery.tsp.utils;
 
-import com.delivery.tsp.dto.PointToPoint;
-import com.delivery.tsp.dto.Result;
-
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
 
+//exhaustive enumeration of the Hamiltonian cycles starting at s, in
+//lexicographic order of the stop sequence. An instance only holds the
+//read-only graph and pruning, the permutation lives in the SearchWorkspace
+//passed to search(), so one instance can run on many threads at once.
+//On a symmetric graph where the windows never decide anything (see
+//TimeWindowPruning.isOrderIndependent) a route and its reverse are the
+//same route, search() then only enumerates the orientation that visits the
+//smallest stop before the second smallest one
 public class HamiltonCycle {
 
-    private static int V=0;
-    // implementation of traveling
-    // Salesman Problem
-    public static List<Result> travllingSalesmanProblem(int graph[][], int s)
-    {
-        // store all vertex apart
-        // from source vertex
-        V=graph.length;
-        List<Result> resultList=new ArrayList<>();
+    //stops is the workspace permutation (graph indexes without s), valid
+    //only during the call: copy it to keep it. distance includes the way back.
+    //Returns false to stop the search
+    public interface RouteConsumer {
+        boolean accept(int[] stops, int distance);
+    }
+
+    private final int[][] graph;
+    private final int s;
+    //may be null, then nothing is skipped for time windows
+    private final TimeWindowPruning pruning;
+    //the two smallest stops, -1 when both orientations are enumerated
+    private final int mirrorFirst;
+    private final int mirrorSecond;
 
-        ArrayList<Integer> vertex =
-                new ArrayList<Integer>();
+    public HamiltonCycle(int graph[][], int s, TimeWindowPruning pruning) {
+        this.graph = graph;
+        this.s = s;
+        this.pruning = pruning;
+        if (pruning != null && pruning.isOrderIndependent() && graph.length > 2 && isSymmetric(graph)) {
+            this.mirrorFirst = s == 0 ? 1 : 0;
+            this.mirrorSecond = s <= 1 ? 2 : 1;
+        } else {
+            this.mirrorFirst = -1;
+            this.mirrorSecond = -1;
+        }
+    }
 
-        for (int i = 0; i < V; i++)
+    // statistics (null allowed) counts explored routes and pruned prefixes.
+    // distanceBound (null allowed) is read once per permutation: a prefix
+    // that is already at least as long as the bound is skipped, so a bound
+    // found by another solver (or by the consumer) cuts the search.
+    // With mirror skipping a prefix holding the second smallest stop before
+    // the smallest is skipped too, every route it leads to comes reversed
+    public boolean search(SearchWorkspace workspace
+            , SolveBudget solveBudget
+            , SearchStatistics statistics
+            , IntSupplier distanceBound
+            , RouteConsumer consumer)
+    {
+        int[] vertex = workspace.permutation(graph.length - 1);
+        int k = 0;
+        for (int i = 0; i < graph.length; i++)
             if (i != s)
-                vertex.add(i);
+                vertex[k++] = i;
 
-        // store minimum weight
-        // Hamiltonian Cycle.
-        int min_path = Integer.MAX_VALUE;
-        int count =0;
+        long[] visited = pruning != null ? workspace.visited(pruning.visitedWords()) : null;
+        long count =0;
         do
         {
+            if(solveBudget.isExhausted(count))
+                return false;
             count++;
-            // store current Path weight(cost)
-            int current_pathweight = 0;
-            Result result=new Result();
-            // compute current path weight
-            int k = s;
-            StringBuilder sb=new StringBuilder();
-            String startPoint=String.valueOf(k);
-            String endPoint="";
-            int distanceBetweenPoint=0;
-            int returnDistance=0;
-            for (int i = 0;	 i < vertex.size(); i++){
-                current_pathweight +=graph[k][vertex.get(i)];
-                distanceBetweenPoint=graph[k][vertex.get(i)];
-                startPoint=String.valueOf(k);
-                sb.append("["+k+"]=>" + graph[k][vertex.get(i)] + "km ");
-                k = vertex.get(i);
-                endPoint=String.valueOf(k);
-                result.getPointList().add(new PointToPoint(startPoint,endPoint,distanceBetweenPoint));
+            if(pruning!=null){
+                int dead=firstInfeasiblePosition(vertex, visited);
+                if(dead>=0){
+                    skipPrefix(vertex, dead);
+                    if(statistics!=null)
+                        statistics.prunedPrefix();
+                    continue;
+                }
+            }
+            if(mirrorSecond>=0){
+                int dead=firstMirroredPosition(vertex);
+                if(dead>=0){
+                    skipPrefix(vertex, dead);
+                    if(statistics!=null)
+                        statistics.prunedPrefix();
+                    continue;
+                }
             }
-            current_pathweight += graph[k][s];
-            returnDistance=graph[k][s];
-            result.setTotalMesure(current_pathweight);
-            result.setReturnDistance(returnDistance);
-            resultList.add(result);
-
-            sb.append("["+k+"]" + " returnPath: " + graph[k][s] + " | Distance: " + current_pathweight + " km");
-            //resultDistancePairList.add(new ResultDistancePair(sb.toString(),current_pathweight));
-            //Collections.sort(resultDistancePairList,(o1, o2) -> o1.getDistance()- o2.getDistance());
-            System.out.println(sb.toString());
-            //System.out.println(resultDistancePairList);
-            // update minimum
-            min_path = Math.min(min_path,
-                    current_pathweight);
+            if(distanceBound!=null){
+                int dead=firstBoundedPosition(vertex, distanceBound.getAsInt());
+                if(dead>=0){
+                    skipPrefix(vertex, dead);
+                    if(statistics!=null)
+                        statistics.prunedPrefix();
+                    continue;
+                }
+            }
+            if(statistics!=null)
+                statistics.explored();
+            if(!consumer.accept(vertex, distance(vertex)))
+                return false;
 
         } while (findNextPermutation(vertex));
-        System.out.println("count: " + count);
-        System.out.println("min path = " + min_path);
-        //return min_path;
-        Collections.sort(resultList,(o1, o2) -> o1.getTotalMesure()- o2.getTotalMesure());
-        return resultList;
+        return true;
+    }
+
+    // enumerates only the permutations with lexicographic rank in
+    // [fromRank, toRank) (see PermutationRank), so the search can be split
+    // across workers and resumed. Returns the rank to continue from:
+    // toRank when the range is done, less when the budget ran out or the
+    // consumer stopped it. A skipped prefix may run past toRank, the
+    // permutations it covers are infeasible in any range. Both orientations
+    // are enumerated here, ranks address the whole permutation space
+    public long search(SearchWorkspace workspace
+            , long fromRank
+            , long toRank
+            , SolveBudget solveBudget
+            , RouteConsumer consumer)
+    {
+        if (fromRank >= toRank)
+            return fromRank;
+
+        int[] sorted = workspace.sortedStops(graph.length - 1);
+        int k = 0;
+        for (int i = 0; i < graph.length; i++)
+            if (i != s)
+                sorted[k++] = i;
+        int[] vertex = workspace.permutation(sorted.length);
+        PermutationRank.unrank(sorted, fromRank, vertex);
+
+        long[] visited = pruning != null ? workspace.visited(pruning.visitedWords()) : null;
+        long rank = fromRank;
+        long count = 0;
+        while (rank < toRank)
+        {
+            if(solveBudget.isExhausted(count))
+                return rank;
+            count++;
+            if(pruning!=null){
+                int dead=firstInfeasiblePosition(vertex, visited);
+                if(dead>=0){
+                    skipPrefix(vertex, dead);
+                    rank = Math.min(PermutationRank.rank(vertex) + 1, toRank);
+                    if (rank < toRank)
+                        findNextPermutation(vertex);
+                    continue;
+                }
+            }
+            if(!consumer.accept(vertex, distance(vertex)))
+                return rank + 1;
+            rank++;
+            if (rank < toRank)
+                findNextPermutation(vertex);
+        }
+        return rank;
+    }
+
+    private int distance(int[] vertex)
+    {
+        int k = s;
+        int distance = 0;
+        for (int next : vertex) {
+            distance += graph[k][next];
+            k = next;
+        }
+        return distance + graph[k][s];
+    }
+
+    // position of the first stop that cannot be reached on time
+    // (vertex.length when only the way back is infeasible), -1 if none.
+    // visited is the workspace buffer, cleared here
+    private int firstInfeasiblePosition(int[] vertex, long[] visited)
+    {
+        Arrays.fill(visited, 0L);
+        int k = s;
+        visited[s >>> 6] |= 1L << s;
+        for (int i = 0; i < vertex.length; i++) {
+            int next = vertex[i];
+            if (pruning.isInfeasibleArc(k, next) || !pruning.canVisit(next, visited))
+                return i;
+            visited[next >>> 6] |= 1L << next;
+            k = next;
+        }
+        return pruning.isInfeasibleArc(k, s) ? vertex.length : -1;
+    }
+
+    // position of the second smallest stop when the smallest is not before
+    // it, -1 when the route is in its canonical orientation
+    private int firstMirroredPosition(int[] vertex)
+    {
+        for (int i = 0; i < vertex.length; i++) {
+            if (vertex[i] == mirrorFirst)
+                return -1;
+            if (vertex[i] == mirrorSecond)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSymmetric(int[][] graph)
+    {
+        for (int i = 0; i < graph.length; i++)
+            for (int j = i + 1; j < graph.length; j++)
+                if (graph[i][j] != graph[j][i])
+                    return false;
+        return true;
+    }
+
+    // position where the route so far reaches the bound
+    // (vertex.length when only the way back does), -1 if it stays below
+    private int firstBoundedPosition(int[] vertex, int bound)
+    {
+        int k = s;
+        int distance = 0;
+        for (int i = 0; i < vertex.length; i++) {
+            int next = vertex[i];
+            distance += graph[k][next];
+            if (distance >= bound)
+                return i;
+            k = next;
+        }
+        return distance + graph[k][s] >= bound ? vertex.length : -1;
+    }
+
+    // jump to the last permutation that starts with vertex[0..position],
+    // the following findNextPermutation call then leaves that prefix
+    private static void skipPrefix(int[] vertex, int position)
+    {
+        if (position + 1 < vertex.length) {
+            Arrays.sort(vertex, position + 1, vertex.length);
+            reverse(vertex, position + 1, vertex.length - 1);
+        }
     }
 
     // Function to swap the data
     // present in the left and right indices
-    public static ArrayList<Integer> swap(
-            ArrayList<Integer> data,
-            int left, int right)
+    public static void swap(int[] data, int left, int right)
     {
         // Swap the data
-        int temp = data.get(left);
-        data.set(left, data.get(right));
-        data.set(right, temp);
-
-        // Return the updated array
-        return data;
+        int temp = data[left];
+        data[left] = data[right];
+        data[right] = temp;
     }
 
     // Function to reverse the sub-array
-// starting from left to the right
-// both inclusive
-    public static ArrayList<Integer> reverse(
-            ArrayList<Integer> data,
-            int left, int right)
+    // starting from left to the right
+    // both inclusive
+    public static void reverse(int[] data, int left, int right)
     {
         // Reverse the sub-array
         while (left < right)
         {
-            int temp = data.get(left);
-            data.set(left++,
-                    data.get(right));
-            data.set(right--, temp);
+            swap(data, left++, right--);
         }
-
-        // Return the updated array
-        return data;
     }
 
     // Function to find the next permutation
     // of the given integer array
-    public static boolean findNextPermutation(
-            ArrayList<Integer> data)
+    public static boolean findNextPermutation(int[] data)
     {
         // If the given dataset is empty
         // or contains only one element
         // next_permutation is not possible
-        if (data.size() <= 1)
+        if (data.length <= 1)
             return false;
 
-        int last = data.size() - 2;
+        int last = data.length - 2;
 
         // find the longest non-increasing
         // suffix and find the pivot
         while (last >= 0)
         {
-            if (data.get(last) <
-                    data.get(last + 1))
+            if (data[last] < data[last + 1])
             {
                 break;
             }
@@ -142,14 +280,12 @@ public class HamiltonCycle {
         if (last < 0)
             return false;
 
-        int nextGreater = data.size() - 1;
+        int nextGreater = data.length - 1;
 
         // Find the rightmost successor
         // to the pivot
-        for (int i = data.size() - 1;
-             i > last; i--) {
-            if (data.get(i) >
-                    data.get(last))
+        for (int i = data.length - 1; i > last; i--) {
+            if (data[i] > data[last])
             {
                 nextGreater = i;
                 break;
@@ -158,10 +294,10 @@ public class HamiltonCycle {
 
         // Swap the successor and
         // the pivot
-        data = swap(data,	nextGreater, last);
+        swap(data, nextGreater, last);
 
         // Reverse the suffix
-        data = reverse(data, last + 1,data.size() - 1);
+        reverse(data, last + 1, data.length - 1);
 
         // Return true as the
         // next_permutation is done
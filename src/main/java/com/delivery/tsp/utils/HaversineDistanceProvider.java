@@ -0,0 +1,38 @@
+package com.delivery.tsp.utils;
+
+//straight-line distances, the default provider
+public class HaversineDistanceProvider implements DistanceProvider {
+
+    public static final String NAME = "haversine";
+
+    @Override
+    public int[][] matrix(double[] latitudes, double[] longitudes) {
+        int size = latitudes.length;
+        int[][] graph = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                graph[i][j] = Distance.distFrom(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public int[][] matrix(double[] fromLatitudes
+            , double[] fromLongitudes
+            , double[] toLatitudes
+            , double[] toLongitudes) {
+        int[][] graph = new int[fromLatitudes.length][toLatitudes.length];
+        for (int i = 0; i < fromLatitudes.length; i++) {
+            for (int j = 0; j < toLatitudes.length; j++) {
+                graph[i][j] = Distance.distFrom(fromLatitudes[i], fromLongitudes[i], toLatitudes[j], toLongitudes[j]);
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,359 @@
+package com.delivery.tsp.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+//exact shortest route by dynamic programming over stop subsets (Held-Karp):
+//the shortest path from the depot through exactly the stops of S ending at
+//j. Layer s holds the subsets of size s in colex order, a subset's index is
+//its combinatorial rank and its s entries follow in stop order, so a layer
+//is C(n,s) s ints and the table n 2^(n-1) ints, no slot for a stop not in S.
+//Only layers s-1 and s are hot: off-heap buffers while both fit memoryLimit
+//and the free direct memory, otherwise mapped straight from their files. A
+//completed layer is spilled to a file in workDir, the route is walked back
+//through the mapped files at the end and the files are deleted.
+//Windows are not part of a state, the DP only drops the arcs and orders the
+//pruning proves infeasible. Its route is the shortest among those: the
+//optimum when RouteEvaluator finds it feasible, a lower bound otherwise
+public class HeldKarpSolver {
+
+    public static final int MAX_POINTS = 40;
+
+    private static final int INFINITE = Integer.MAX_VALUE;
+    //subsets per parallel block
+    private static final int BLOCK_SUBSETS = 1 << 12;
+    //subsets a worker computes between two budget checks
+    private static final int BUDGET_CHECK_SUBSETS = 1 << 10;
+
+    private final ProblemInstance instance;
+    private final TimeWindowPruning pruning;
+    private final int size;
+    private final long memoryLimitBytes;
+    private final Path workDir;
+    private final int blockSubsets;
+    //binomial[a][b] = C(a, b)
+    private final long[][] binomial;
+
+    public HeldKarpSolver(ProblemInstance instance
+            , TimeWindowPruning pruning
+            , long memoryLimitBytes
+            , Path workDir) {
+        this(instance, pruning, memoryLimitBytes, workDir, BLOCK_SUBSETS);
+    }
+
+    public HeldKarpSolver(ProblemInstance instance
+            , TimeWindowPruning pruning
+            , long memoryLimitBytes
+            , Path workDir
+            , int blockSubsets) {
+        this.instance = instance;
+        this.pruning = pruning;
+        this.size = instance.size() - 1;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.workDir = workDir;
+        this.blockSubsets = Math.max(1, blockSubsets);
+        if (size > MAX_POINTS) {
+            throw new RuntimeException("Held-Karp takes at most " + MAX_POINTS + " delivery points");
+        }
+        this.binomial = binomials(size);
+    }
+
+    //bytes of all layer files of an instance with points stops
+    public static long tableBytes(int points) {
+        return points == 0 ? 0 : (long) points * (1L << (points - 1)) * Integer.BYTES;
+    }
+
+    //the two hot buffers, each sized for the largest layer
+    public static long hotBytes(int points) {
+        return 2 * largestLayer(points, binomials(points)) * Integer.BYTES;
+    }
+
+    //inner loop steps, sum of C(n,s) s (s-1)
+    public static double transitions(int points) {
+        return (double) points * (points - 1) * Math.pow(2, Math.max(0, points - 2));
+    }
+
+    //shortest stop order (graph indexes) over the feasible arcs, null when
+    //no order is left or the budget ran out first
+    public int[] solve(SolveBudget solveBudget) {
+        if (size == 0) {
+            return new int[0];
+        }
+        Path directory = null;
+        try {
+            Files.createDirectories(workDir);
+            directory = Files.createTempDirectory(workDir, "held-karp-");
+            return solve(directory, solveBudget);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Held-Karp layers not writable in " + workDir, e);
+        } finally {
+            if (directory != null) {
+                delete(directory);
+            }
+        }
+    }
+
+    private int[] solve(Path directory, SolveBudget solveBudget) throws IOException {
+        //allocated once and swapped, direct memory only returns on a GC
+        //both buffers are checked against the free direct memory before the
+        //first is allocated, otherwise the files take the hot layers too
+        SubsetLayer[] hot = null;
+        long hotBytes = hotBytes(size);
+        if (hotBytes <= memoryLimitBytes && hotBytes <= SubsetLayer.freeDirectBytes()) {
+            long largest = largestLayer(size, binomial);
+            hot = new SubsetLayer[]{SubsetLayer.direct(largest), SubsetLayer.direct(largest)};
+        }
+        boolean direct = hot != null;
+        //subsets computed over all layers and workers, one iteration each
+        LongAdder iterations = new LongAdder();
+
+        SubsetLayer previous = null;
+        for (int s = 1; s <= size; s++) {
+            SubsetLayer current;
+            FileChannel channel = null;
+            if (direct) {
+                current = hot[s & 1];
+            } else {
+                channel = FileChannel.open(layerFile(directory, s)
+                        , StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                current = SubsetLayer.mapped(channel, binomial[size][s] * s, FileChannel.MapMode.READ_WRITE);
+            }
+            try {
+                if (!computeLayer(s, previous, current, solveBudget, iterations)) {
+                    return null;
+                }
+                if (direct) {
+                    spill(directory, s, current);
+                } else {
+                    current.force();
+                }
+            } finally {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+            previous = current;
+        }
+        return walkBack(directory, previous);
+    }
+
+    //SolveBudget.isExhausted keeps per-caller state, the ForkJoin workers
+    //read the deadline and the token themselves and share the iteration count
+    private boolean computeLayer(int s
+            , SubsetLayer previous
+            , SubsetLayer current
+            , SolveBudget solveBudget
+            , LongAdder iterations) {
+        long subsets = binomial[size][s];
+        int blocks = (int) ((subsets + blockSubsets - 1) / blockSubsets);
+        AtomicBoolean exhausted = new AtomicBoolean(isExhausted(solveBudget, iterations));
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            long first = (long) block * blockSubsets;
+            long last = Math.min(subsets, first + blockSubsets);
+            long mask = unrank(first, s);
+            int[] members = new int[s];
+            long[] without = new long[s];
+            int pending = 0;
+            for (long rank = first; rank < last && !exhausted.get(); rank++) {
+                computeSubset(s, mask, rank, members, without, previous, current);
+                mask = nextSubset(mask);
+                if (++pending == BUDGET_CHECK_SUBSETS || rank + 1 == last) {
+                    iterations.add(pending);
+                    pending = 0;
+                    if (isExhausted(solveBudget, iterations)) {
+                        exhausted.set(true);
+                        return;
+                    }
+                }
+            }
+        });
+        return !exhausted.get();
+    }
+
+    //the subsets already counted are computed, only more than the limit is exhausted
+    private static boolean isExhausted(SolveBudget solveBudget, LongAdder iterations) {
+        return solveBudget.getCancellationToken().isCancelled()
+                || iterations.sum() > solveBudget.getMaxIterations()
+                || solveBudget.remainingMillis() == 0;
+    }
+
+    //members: stops of the subset in order, without[p]: rank of the subset
+    //without members[p] in layer s-1
+    private void computeSubset(int s
+            , long mask
+            , long rank
+            , int[] members
+            , long[] without
+            , SubsetLayer previous
+            , SubsetLayer current) {
+        int count = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            members[count++] = Long.numberOfTrailingZeros(rest);
+        }
+        long prefix = 0;
+        long suffix = 0;
+        for (int t = 1; t < s; t++) {
+            suffix += binomial[members[t]][t];
+        }
+        for (int p = 0; p < s; p++) {
+            without[p] = prefix + suffix;
+            prefix += binomial[members[p]][p + 1];
+            if (p + 1 < s) {
+                suffix -= binomial[members[p + 1]][p + 1];
+            }
+        }
+
+        long slot = rank * s;
+        for (int p = 0; p < s; p++) {
+            int last = members[p] + 1;
+            long visited = ((mask & ~(1L << members[p])) << 1) | 1L;
+            int best = INFINITE;
+            //a stop that has to come before last is missing: no path
+            boolean ordered = pruning.canVisit(last, visited);
+            if (s == 1) {
+                if (ordered && !pruning.isInfeasibleArc(0, last)) {
+                    best = instance.distance(0, last);
+                }
+            } else if (ordered) {
+                long base = without[p] * (s - 1);
+                for (int q = 0; q < s; q++) {
+                    if (q == p) {
+                        continue;
+                    }
+                    int from = members[q] + 1;
+                    int distance = previous.get(base + (q < p ? q : q - 1));
+                    if (distance == INFINITE || pruning.isInfeasibleArc(from, last)) {
+                        continue;
+                    }
+                    best = Math.min(best, distance + instance.distance(from, last));
+                }
+            }
+            current.set(slot + p, best);
+        }
+    }
+
+    //the closing leg picks the last stop, then every layer the predecessor
+    //whose path plus leg gives the value of the layer above
+    private int[] walkBack(Path directory, SubsetLayer full) throws IOException {
+        long mask = (1L << size) - 1;
+        int bestTotal = INFINITE;
+        int position = -1;
+        for (int p = 0; p < size; p++) {
+            int distance = full.get(p);
+            if (distance != INFINITE && !pruning.isInfeasibleArc(p + 1, 0)
+                    && distance + instance.distance(p + 1, 0) < bestTotal) {
+                bestTotal = distance + instance.distance(p + 1, 0);
+                position = p;
+            }
+        }
+        if (position < 0) {
+            return null;
+        }
+
+        int[] stops = new int[size];
+        int last = position + 1;
+        int value = full.get(position);
+        for (int s = size; s > 1; s--) {
+            stops[s - 1] = last;
+            mask &= ~(1L << (last - 1));
+            long base = rank(mask) * (s - 1);
+            try (FileChannel channel = FileChannel.open(layerFile(directory, s - 1), StandardOpenOption.READ)) {
+                SubsetLayer layer = SubsetLayer.mapped(channel, binomial[size][s - 1] * (s - 1), FileChannel.MapMode.READ_ONLY);
+                int q = 0;
+                int predecessor = -1;
+                for (long rest = mask; rest != 0; rest &= rest - 1, q++) {
+                    int from = Long.numberOfTrailingZeros(rest) + 1;
+                    int distance = layer.get(base + q);
+                    if (distance != INFINITE && !pruning.isInfeasibleArc(from, last)
+                            && distance + instance.distance(from, last) == value) {
+                        predecessor = from;
+                        value = distance;
+                        break;
+                    }
+                }
+                last = predecessor;
+            }
+        }
+        stops[0] = last;
+        return stops;
+    }
+
+    private void spill(Path directory, int s, SubsetLayer layer) throws IOException {
+        try (FileChannel channel = FileChannel.open(layerFile(directory, s)
+                , StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            layer.writeTo(channel, binomial[size][s] * s);
+        }
+    }
+
+    //colex rank: sum of C(c_t, t+1) over the members c_0 < c_1 < ...
+    private long rank(long mask) {
+        long rank = 0;
+        int t = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1, t++) {
+            rank += binomial[Long.numberOfTrailingZeros(rest)][t + 1];
+        }
+        return rank;
+    }
+
+    //greedy inverse of rank, largest member first
+    private long unrank(long rank, int s) {
+        long mask = 0;
+        int c = size - 1;
+        for (int t = s; t >= 1; t--) {
+            while (binomial[c][t] > rank) {
+                c--;
+            }
+            mask |= 1L << c;
+            rank -= binomial[c][t];
+            c--;
+        }
+        return mask;
+    }
+
+    //next mask with the same bit count, colex order (Gosper)
+    private static long nextSubset(long mask) {
+        long lowest = mask & -mask;
+        long ripple = mask + lowest;
+        return ripple == 0 ? 0 : ripple | (((mask ^ ripple) >>> 2) / lowest);
+    }
+
+    private static Path layerFile(Path directory, int s) {
+        return directory.resolve("layer-" + s + ".bin");
+    }
+
+    private static long largestLayer(int points, long[][] binomial) {
+        long largest = 0;
+        for (int s = 1; s <= points; s++) {
+            largest = Math.max(largest, binomial[points][s] * s);
+        }
+        return largest;
+    }
+
+    private static long[][] binomials(int points) {
+        long[][] binomial = new long[points + 1][points + 2];
+        for (int a = 0; a <= points; a++) {
+            binomial[a][0] = 1;
+            for (int b = 1; b <= a; b++) {
+                binomial[a][b] = binomial[a - 1][b - 1] + binomial[a - 1][b];
+            }
+        }
+        return binomial;
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        } catch (IOException ignored) {
+            //best effort, the directory is below workDir
+        }
+        directory.toFile().delete();
+    }
+}
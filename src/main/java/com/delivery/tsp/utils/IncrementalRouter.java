@@ -0,0 +1,172 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.RouteSchedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+//updates an already solved stop order instead of enumerating again:
+//cancelled stops are dropped, new stops go to their cheapest feasible
+//position (tightest window first) and then a bounded relocate / 2-opt
+//repair runs while it still finds shorter feasible routes
+public class IncrementalRouter {
+
+    private static final int MAX_REPAIR_PASSES = 8;
+
+    private final RouteEvaluator routeEvaluator;
+    //may be null, then every arc is tried
+    private final TimeWindowPruning pruning;
+
+    public IncrementalRouter(RouteEvaluator routeEvaluator) {
+        this(routeEvaluator, null);
+    }
+
+    public IncrementalRouter(RouteEvaluator routeEvaluator, TimeWindowPruning pruning) {
+        this.routeEvaluator = routeEvaluator;
+        this.pruning = pruning;
+    }
+
+    public int[] update(int[] stops
+            , int[] addedStops
+            , int[] removedStops
+            , SolveBudget solveBudget) {
+
+        int[] route = Arrays.stream(stops)
+                .filter(stop -> Arrays.stream(removedStops).noneMatch(removed -> removed == stop))
+                .toArray();
+
+        List<Integer> toInsert = new ArrayList<>();
+        Arrays.stream(addedStops).forEach(toInsert::add);
+        toInsert.sort(Comparator.comparingInt(routeEvaluator.getInstance()::getWindowEnd));
+
+        for (int stop : toInsert) {
+            route = insertCheapest(route, stop);
+        }
+        return repair(route, solveBudget);
+    }
+
+    //cheapest feasible position, or the cheapest position at all when none is feasible
+    public int[] insertCheapest(int[] route, int stop) {
+        ProblemInstance instance = routeEvaluator.getInstance();
+        int[] candidate = new int[route.length + 1];
+        RouteSchedule schedule = new RouteSchedule();
+        int[] best = null;
+        int bestDelta = Integer.MAX_VALUE;
+        boolean bestFeasible = false;
+
+        for (int position = 0; position <= route.length; position++) {
+            int before = position == 0 ? 0 : route[position - 1];
+            int after = position == route.length ? 0 : route[position];
+            int delta = instance.distance(before, stop) + instance.distance(stop, after) - instance.distance(before, after);
+            if (bestFeasible && delta >= bestDelta) {
+                continue;
+            }
+
+            System.arraycopy(route, 0, candidate, 0, position);
+            candidate[position] = stop;
+            System.arraycopy(route, position, candidate, position + 1, route.length - position);
+
+            boolean feasible = !isPruned(before, stop, after)
+                    && routeEvaluator.evaluate(candidate, candidate.length, schedule).isFeasible();
+            if ((feasible && !bestFeasible) || (feasible == bestFeasible && delta < bestDelta)) {
+                best = candidate.clone();
+                bestDelta = delta;
+                bestFeasible = feasible;
+            }
+        }
+        return best;
+    }
+
+    //relocate, exchange and 2-opt until no move helps or the pass cap of
+    //TimeWindowLocalSearch is reached, each move checked in O(1). With
+    //time-dependent speeds a move has to re-simulate the day, see repairBySimulation
+    public int[] repair(int[] route, SolveBudget solveBudget) {
+        ProblemInstance instance = routeEvaluator.getInstance();
+        if (!instance.isTimeDependent()) {
+            return new TimeWindowLocalSearch(instance).improve(route, solveBudget);
+        }
+        return repairBySimulation(route, solveBudget);
+    }
+
+    //first-improvement relocate and 2-opt, bounded by passes and the budget.
+    //Moves are built in one scratch array and evaluated into one scratch
+    //schedule, an improvement only swaps them with the current route
+    private int[] repairBySimulation(int[] route, SolveBudget solveBudget) {
+        route = route.clone();
+        int[] candidate = new int[route.length];
+        RouteSchedule current = routeEvaluator.evaluate(route);
+        RouteSchedule schedule = new RouteSchedule();
+        long iteration = 0;
+        boolean improved = true;
+
+        for (int pass = 0; improved && pass < MAX_REPAIR_PASSES; pass++) {
+            improved = false;
+            for (int i = 0; i < route.length && !improved; i++) {
+                for (int j = 0; j < route.length && !improved; j++) {
+                    if (solveBudget.isExhausted(iteration++)) {
+                        return route;
+                    }
+                    if (i == j) {
+                        continue;
+                    }
+                    relocate(route, i, j, candidate);
+                    routeEvaluator.evaluate(candidate, candidate.length, schedule);
+                    if (!isBetter(schedule, current) && i < j) {
+                        reverse(route, i, j, candidate);
+                        routeEvaluator.evaluate(candidate, candidate.length, schedule);
+                    }
+                    if (isBetter(schedule, current)) {
+                        int[] previousRoute = route;
+                        route = candidate;
+                        candidate = previousRoute;
+                        RouteSchedule previousSchedule = current;
+                        current = schedule;
+                        schedule = previousSchedule;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return route;
+    }
+
+    private boolean isPruned(int before, int stop, int after) {
+        return pruning != null
+                && (pruning.isInfeasibleArc(before, stop) || pruning.isInfeasibleArc(stop, after));
+    }
+
+    private static boolean isBetter(RouteSchedule candidate, RouteSchedule current) {
+        if (candidate.isFeasible() != current.isFeasible()) {
+            return candidate.isFeasible();
+        }
+        return candidate.getDistance() < current.getDistance();
+    }
+
+    private static void relocate(int[] route, int from, int to, int[] result) {
+        int stop = route[from];
+        int k = 0;
+        for (int i = 0; i < route.length; i++) {
+            if (i == from) {
+                continue;
+            }
+            if (k == to) {
+                result[k++] = stop;
+            }
+            result[k++] = route[i];
+        }
+        if (k == to) {
+            result[k] = stop;
+        }
+    }
+
+    private static void reverse(int[] route, int from, int to, int[] result) {
+        System.arraycopy(route, 0, result, 0, route.length);
+        while (from < to) {
+            int temp = result[from];
+            result[from++] = result[to];
+            result[to--] = temp;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CompactRoute;
+import com.delivery.tsp.dto.RouteSchedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//keeps the k shortest feasible routes offered to it, ties broken by waiting time.
+//The heap has the worst kept route on top, so a route that cannot make it
+//is rejected with one comparison and nothing is allocated for it
+public class KBestRoutes {
+
+    private static final Comparator<CompactRoute> BEST_FIRST =
+            Comparator.comparingInt(CompactRoute::getDistance)
+                    .thenComparingInt(CompactRoute::getTimeWait);
+
+    private final int k;
+    private final PriorityQueue<CompactRoute> heap;
+
+    public KBestRoutes(int k) {
+        if (k <= 0) {
+            throw new RuntimeException("Number of alternatives must be positive");
+        }
+        this.k = k;
+        //grows with the routes kept, k comes from the request
+        this.heap = new PriorityQueue<>(BEST_FIRST.reversed());
+    }
+
+    public boolean offer(int[] stops, RouteSchedule schedule) {
+        if (!schedule.isFeasible()) {
+            return false;
+        }
+        if (heap.size() == k) {
+            CompactRoute worst = heap.peek();
+            if (schedule.getDistance() > worst.getDistance()
+                    || schedule.getDistance() == worst.getDistance() && schedule.getTimeWait() >= worst.getTimeWait()) {
+                return false;
+            }
+            heap.poll();
+        }
+        heap.add(new CompactRoute(compact(stops), schedule.getDistance(), schedule.getTimeWait()));
+        return true;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public List<CompactRoute> toSortedList() {
+        List<CompactRoute> routes = new ArrayList<>(heap);
+        routes.sort(BEST_FIRST);
+        return routes;
+    }
+
+    private static short[] compact(int[] stops) {
+        short[] result = new short[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            if (stops[i] > Short.MAX_VALUE) {
+                throw new RuntimeException("Stop index " + stops[i] + " does not fit a compact route");
+            }
+            result[i] = (short) stops[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,154 @@
+package com.delivery.tsp.utils;
+
+import java.util.Arrays;
+
+//Held-Karp 1-tree bound with subgradient optimisation of the node penalties.
+//Works on min(graph[i][j], graph[j][i]), so it is a valid bound for
+//asymmetric matrices too, and it ignores delivery windows, which can only
+//make the real optimum longer. O(n^2) per iteration
+public class LowerBound {
+
+    private static final int DEFAULT_ITERATIONS = 200;
+    private static final int HALVE_STEP_AFTER = 10;
+
+    public static int heldKarp(int[][] graph) {
+        return heldKarp(graph, DEFAULT_ITERATIONS);
+    }
+
+    public static int heldKarp(int[][] graph, int iterations) {
+        int size = graph.length;
+        if (size <= 1) {
+            return 0;
+        }
+        if (size == 2) {
+            return graph[0][1] + graph[1][0];
+        }
+
+        double[][] cost = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cost[i][j] = Math.min(graph[i][j], graph[j][i]);
+            }
+        }
+
+        double upperBound = nearestNeighbourTour(cost);
+        double[] penalty = new double[size];
+        int[] degree = new int[size];
+        double best = Double.NEGATIVE_INFINITY;
+        double lambda = 2.0;
+        int sinceImprovement = 0;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            double tree = minimumOneTree(cost, penalty, degree);
+            double penaltySum = 0;
+            for (double p : penalty) {
+                penaltySum += p;
+            }
+            double bound = tree - 2 * penaltySum;
+            if (bound > best + 1e-9) {
+                best = bound;
+                sinceImprovement = 0;
+            } else if (++sinceImprovement >= HALVE_STEP_AFTER) {
+                lambda /= 2;
+                sinceImprovement = 0;
+            }
+
+            int norm = 0;
+            for (int d : degree) {
+                norm += (d - 2) * (d - 2);
+            }
+            //every node has degree 2: the 1-tree is a tour, the bound is tight
+            if (norm == 0 || lambda < 1e-6) {
+                break;
+            }
+            double step = lambda * Math.max(upperBound - bound, 1e-3) / norm;
+            for (int i = 0; i < size; i++) {
+                penalty[i] += step * (degree[i] - 2);
+            }
+        }
+        //tour lengths are integers
+        return (int) Math.ceil(best - 1e-6);
+    }
+
+    //(upper - lower) / upper, 0 when the route meets the bound
+    public static double gap(int distance, int lowerBound) {
+        if (distance <= 0 || distance == Integer.MAX_VALUE || distance <= lowerBound) {
+            return distance == Integer.MAX_VALUE ? Double.NaN : 0;
+        }
+        return (double) (distance - lowerBound) / distance;
+    }
+
+    //MST over nodes 1..n-1 plus the two cheapest edges of node 0
+    private static double minimumOneTree(double[][] cost, double[] penalty, int[] degree) {
+        int size = cost.length;
+        Arrays.fill(degree, 0);
+
+        boolean[] inTree = new boolean[size];
+        double[] key = new double[size];
+        int[] parent = new int[size];
+        Arrays.fill(key, Double.POSITIVE_INFINITY);
+        key[1] = 0;
+        parent[1] = -1;
+        double total = 0;
+
+        for (int added = 1; added < size; added++) {
+            int u = -1;
+            for (int v = 1; v < size; v++) {
+                if (!inTree[v] && (u < 0 || key[v] < key[u])) {
+                    u = v;
+                }
+            }
+            inTree[u] = true;
+            total += key[u];
+            if (parent[u] >= 0) {
+                degree[u]++;
+                degree[parent[u]]++;
+            }
+            for (int v = 1; v < size; v++) {
+                double c = cost[u][v] + penalty[u] + penalty[v];
+                if (!inTree[v] && c < key[v]) {
+                    key[v] = c;
+                    parent[v] = u;
+                }
+            }
+        }
+
+        int first = -1;
+        int second = -1;
+        for (int v = 1; v < size; v++) {
+            double c = cost[0][v] + penalty[0] + penalty[v];
+            if (first < 0 || c < cost[0][first] + penalty[0] + penalty[first]) {
+                second = first;
+                first = v;
+            } else if (second < 0 || c < cost[0][second] + penalty[0] + penalty[second]) {
+                second = v;
+            }
+        }
+        total += cost[0][first] + penalty[0] + penalty[first];
+        total += cost[0][second] + penalty[0] + penalty[second];
+        degree[0] = 2;
+        degree[first]++;
+        degree[second]++;
+        return total;
+    }
+
+    private static double nearestNeighbourTour(double[][] cost) {
+        int size = cost.length;
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        int current = 0;
+        double length = 0;
+        for (int step = 1; step < size; step++) {
+            int next = -1;
+            for (int v = 1; v < size; v++) {
+                if (!visited[v] && (next < 0 || cost[current][v] < cost[current][next])) {
+                    next = v;
+                }
+            }
+            visited[next] = true;
+            length += cost[current][next];
+            current = next;
+        }
+        return length + cost[current][0];
+    }
+}
@@ -0,0 +1,58 @@
+package com.delivery.tsp.utils;
+
+//lexicographic rank of a permutation of distinct values and its inverse.
+//Ranks follow findNextPermutation order, so an exhaustive search can be
+//split into rank ranges and resumed from a rank
+public class PermutationRank {
+
+    //20! is the largest factorial that fits a long
+    public static final int MAX_LENGTH = 20;
+
+    public static long factorial(int n) {
+        if (n > MAX_LENGTH) {
+            throw new RuntimeException(n + "! permutations cannot be addressed by rank");
+        }
+        long factorial = 1;
+        for (int i = 2; i <= n; i++) {
+            factorial *= i;
+        }
+        return factorial;
+    }
+
+    public static long rank(int[] permutation) {
+        int n = permutation.length;
+        long rank = 0;
+        for (int i = 0; i < n; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < n; j++) {
+                if (permutation[j] < permutation[i]) {
+                    smaller++;
+                }
+            }
+            rank += smaller * factorial(n - 1 - i);
+        }
+        return rank;
+    }
+
+    //permutation with the given rank of values sorted ascending,
+    //written into permutation without allocating
+    public static void unrank(int[] sortedValues, long rank, int[] permutation) {
+        int n = sortedValues.length;
+        if (rank < 0 || rank >= factorial(n)) {
+            throw new RuntimeException("Rank " + rank + " is out of range for " + n + " values");
+        }
+        long used = 0;
+        for (int i = 0; i < n; i++) {
+            long factorial = factorial(n - 1 - i);
+            int skip = (int) (rank / factorial);
+            rank %= factorial;
+            for (int j = 0; j < n; j++) {
+                if ((used & 1L << j) == 0 && skip-- == 0) {
+                    used |= 1L << j;
+                    permutation[i] = sortedValues[j];
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+//canonical SHA-256 of everything a route depends on: courier depot, speed,
+//shift and spendTime plus the points with ids, coordinates and windows.
+//Points stay in repository order: spendTime is matched to them by position
+//and the route text numbers stops by position, so another order is another key
+public class ProblemFingerprint {
+
+    public static String of(CourierDto courierDto, List<DeliveryPoint> deliveryPointList){
+
+        int[] spendTime = courierDto.getSpendTime() != null ? courierDto.getSpendTime() : new int[0];
+        ByteBuffer buffer=ByteBuffer.allocate(48 + spendTime.length * 4 + deliveryPointList.size() * 40);
+
+        buffer.putDouble(courierDto.getLotitude());
+        buffer.putDouble(courierDto.getLongitude());
+        buffer.putInt(courierDto.getSpeed());
+        buffer.putInt(secondOfDay(courierDto.getBeginWorkDay()));
+        buffer.putInt(secondOfDay(courierDto.getEndWorkDay()));
+        buffer.putInt(spendTime.length);
+        for (int minutes : spendTime) {
+            buffer.putInt(minutes);
+        }
+
+        buffer.putInt(deliveryPointList.size());
+        for (DeliveryPoint deliveryPoint : deliveryPointList) {
+            buffer.putInt(deliveryPoint.getId());
+            buffer.putDouble(deliveryPoint.getLatitude());
+            buffer.putDouble(deliveryPoint.getLongitude());
+            buffer.putInt(secondOfDay(deliveryPoint.getDeliveryFrom()));
+            buffer.putInt(secondOfDay(deliveryPoint.getDeliveryTo()));
+        }
+
+        return toHex(sha256(buffer.array(), buffer.position()));
+    }
+
+    private static int secondOfDay(java.time.LocalTime time){
+        return time == null ? -1 : time.toSecondOfDay();
+    }
+
+    static byte[] sha256(byte[] data, int length){
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, 0, length);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes){
+        StringBuilder sb=new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
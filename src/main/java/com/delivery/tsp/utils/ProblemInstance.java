@@ -0,0 +1,182 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//one solve compiled to primitives: everything the solvers read while they
+//search, indexed by graph index (0 = depot, stop k = deliveryPointList.get(k-1)).
+//Times are seconds of day, travel is whole seconds as RouteEvaluator adds
+//them to its clock, (int) ((km * 1000) / (speed * factor / 3.6)).
+//Immutable after compile, so one instance is shared by every solver and
+//thread of the solve
+public final class ProblemInstance {
+
+    private static final int KILOMETER_TO_METER=1000;
+    private static final double KM_HOUR_TO_M_SEC=3.6;
+    private static final int MITUTE_TO_SECOND=60;
+
+    private final int size;
+    private final int begin;
+    private final int end;
+    private final int[][] distance;
+    private final int[] pointIds;
+    private final int[] windowStart;
+    private final int[] windowEnd;
+    private final int[] serviceSeconds;
+    //[bucket] -> [from][to], null = constant speed
+    private final int[][][] bucketTravelSeconds;
+    //constant speed, or the fastest bucket of the day
+    private final int[][] fastestTravelSeconds;
+
+    private ProblemInstance(int begin
+            , int end
+            , int[][] distance
+            , int[] pointIds
+            , int[] windowStart
+            , int[] windowEnd
+            , int[] serviceSeconds
+            , int[][][] bucketTravelSeconds
+            , int[][] fastestTravelSeconds) {
+        this.size = distance.length;
+        this.begin = begin;
+        this.end = end;
+        this.distance = distance;
+        this.pointIds = pointIds;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.serviceSeconds = serviceSeconds;
+        this.bucketTravelSeconds = bucketTravelSeconds;
+        this.fastestTravelSeconds = fastestTravelSeconds;
+    }
+
+    public static ProblemInstance compile(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , int[][] graph) {
+        return compile(courierDto, deliveryPointList, graph, null);
+    }
+
+    //speedProfile null or constant = courier speed all day
+    public static ProblemInstance compile(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , int[][] graph
+            , SpeedProfile speedProfile) {
+
+        int size = graph.length;
+        if (size != deliveryPointList.size() + 1) {
+            throw new RuntimeException("Distance matrix does not match " + deliveryPointList.size() + " delivery points");
+        }
+        int begin = courierDto.getBeginWorkDay().toSecondOfDay();
+        int end = courierDto.getEndWorkDay().toSecondOfDay();
+
+        int[][] distance = new int[size][];
+        for (int i = 0; i < size; i++) {
+            distance[i] = graph[i].clone();
+        }
+
+        int[] pointIds = new int[size];
+        int[] windowStart = new int[size];
+        int[] windowEnd = new int[size];
+        int[] serviceSeconds = new int[size];
+        windowStart[0] = begin;
+        windowEnd[0] = end;
+        int[] spendTime = courierDto.getSpendTime();
+        for (int k = 1; k < size; k++) {
+            DeliveryPoint deliveryPoint = deliveryPointList.get(k-1);
+            pointIds[k] = deliveryPoint.getId();
+            windowStart[k] = deliveryPoint.getDeliveryFrom().toSecondOfDay();
+            windowEnd[k] = deliveryPoint.getDeliveryTo().toSecondOfDay();
+            serviceSeconds[k] = spendTime != null && k-1 < spendTime.length
+                    ? spendTime[k-1] * MITUTE_TO_SECOND
+                    : 0;
+        }
+
+        int speed = courierDto.getSpeed();
+        if (speedProfile == null || speedProfile.isConstant()) {
+            return new ProblemInstance(begin, end, distance, pointIds, windowStart, windowEnd, serviceSeconds
+                    , null, travelSeconds(distance, speed));
+        }
+        //buckets with the same factor share one matrix
+        Map<Double, int[][]> byFactor = new HashMap<>();
+        int[][][] bucketTravelSeconds = new int[SpeedProfile.BUCKETS][][];
+        for (int bucket = 0; bucket < SpeedProfile.BUCKETS; bucket++) {
+            bucketTravelSeconds[bucket] = byFactor.computeIfAbsent(speedProfile.getFactor(bucket)
+                    , factor -> travelSeconds(distance, speed * factor));
+        }
+        return new ProblemInstance(begin, end, distance, pointIds, windowStart, windowEnd, serviceSeconds
+                , bucketTravelSeconds, travelSeconds(distance, speed * speedProfile.getMaxFactor()));
+    }
+
+    private static int[][] travelSeconds(int[][] distance, double speed) {
+        int size = distance.length;
+        int[][] seconds = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                seconds[i][j] = (int) ((distance[i][j] * KILOMETER_TO_METER) / (speed / KM_HOUR_TO_M_SEC));
+            }
+        }
+        return seconds;
+    }
+
+    //number of graph indexes, depot included
+    public int size() {
+        return size;
+    }
+
+    public int getBegin() {
+        return begin;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int distance(int from, int to) {
+        return distance[from][to];
+    }
+
+    //leaving from at departureSecondOfDay
+    public int travelSeconds(int departureSecondOfDay, int from, int to) {
+        return bucketTravelSeconds != null
+                ? bucketTravelSeconds[SpeedProfile.bucket(departureSecondOfDay)][from][to]
+                : fastestTravelSeconds[from][to];
+    }
+
+    //lower bound over the whole day, for pruning
+    public int fastestTravelSeconds(int from, int to) {
+        return fastestTravelSeconds[from][to];
+    }
+
+    public boolean isTimeDependent() {
+        return bucketTravelSeconds != null;
+    }
+
+    //delivery point id of a stop, 0 for the depot
+    public int getPointId(int stop) {
+        return pointIds[stop];
+    }
+
+    public int getWindowStart(int stop) {
+        return windowStart[stop];
+    }
+
+    public int getWindowEnd(int stop) {
+        return windowEnd[stop];
+    }
+
+    public int getServiceSeconds(int stop) {
+        return serviceSeconds[stop];
+    }
+
+    //copy, callers may not change the instance
+    public int[][] getGraph() {
+        int[][] graph = new int[size][];
+        for (int i = 0; i < size; i++) {
+            graph[i] = distance[i].clone();
+        }
+        return graph;
+    }
+}
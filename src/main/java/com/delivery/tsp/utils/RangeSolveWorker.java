@@ -0,0 +1,57 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.SolveCheckpoint;
+import com.delivery.tsp.dto.SolveProblem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//entry point of a partition worker process started by PartitionedSolveCoordinator:
+//  RangeSolveWorker <problem.json> <checkpoint.json> <fromRank> <toRank> <checkpointIntervalMs>
+//An existing checkpoint of the same problem and range is resumed
+public class RangeSolveWorker {
+
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("usage: RangeSolveWorker <problem.json> <checkpoint.json> <fromRank> <toRank> <checkpointIntervalMs>");
+            System.exit(2);
+        }
+        SolveProblem problem = RangeSolver.readProblem(Paths.get(args[0]));
+        Path checkpointFile = Paths.get(args[1]);
+        long fromRank = Long.parseLong(args[2]);
+        long toRank = Long.parseLong(args[3]);
+        long checkpointIntervalMs = Long.parseLong(args[4]);
+
+        SolveCheckpoint checkpoint = RangeSolver.readCheckpoint(checkpointFile);
+        if (checkpoint == null
+                || !problem.getFingerprint().equals(checkpoint.getFingerprint())
+                || checkpoint.getFromRank() != fromRank
+                || checkpoint.getToRank() != toRank) {
+            checkpoint = new SolveCheckpoint(problem.getFingerprint(), fromRank, toRank);
+        } else {
+            System.out.println("resuming " + checkpoint);
+        }
+
+        //on SIGTERM (coordinator deadline, redeploy) the search stops at the next
+        //permutation and writes its checkpoint before the JVM exits
+        CancellationToken cancellationToken = new CancellationToken();
+        Thread searchThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            cancellationToken.cancel();
+            try {
+                searchThread.join(SHUTDOWN_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        long start = System.currentTimeMillis();
+        new RangeSolver(problem).solve(checkpoint, checkpointFile, checkpointIntervalMs
+                , SolveBudget.of(0, 0, cancellationToken));
+        System.out.println((checkpoint.isComplete() ? "finished in " : "stopped after ")
+                + (System.currentTimeMillis() - start) + "ms " + checkpoint);
+    }
+}
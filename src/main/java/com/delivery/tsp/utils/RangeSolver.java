@@ -0,0 +1,143 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.RouteSchedule;
+import com.delivery.tsp.dto.SolveCheckpoint;
+import com.delivery.tsp.dto.SolveProblem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//exhaustive search of one permutation rank range, the best routes of every
+//objective are kept in a SolveCheckpoint that is rewritten to disk at most
+//every checkpointIntervalMs, so a killed search resumes from its last position
+public class RangeSolver {
+
+    //ranks searched between two looks at the clock for a checkpoint
+    private static final long RANKS_PER_CHUNK = 1L << 16;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final RouteEvaluator routeEvaluator;
+    private final HamiltonCycle hamiltonCycle;
+
+    public RangeSolver(SolveProblem problem) {
+        int[][] graph = problem.getGraph();
+        ProblemInstance instance = ProblemInstance.compile(problem.getCourierDto(), problem.getDeliveryPoints(), graph
+                , problem.getSpeedFactors() != null ? SpeedProfile.of(problem.getSpeedFactors()) : null);
+        this.routeEvaluator = new RouteEvaluator(instance);
+        this.hamiltonCycle = new HamiltonCycle(graph, 0, TimeWindowPruning.of(instance));
+    }
+
+    public SolveCheckpoint solve(SolveCheckpoint checkpoint
+            , Path checkpointFile
+            , long checkpointIntervalMs
+            , SolveBudget solveBudget) throws IOException {
+
+        long lastWrite = System.nanoTime();
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            while (!checkpoint.isComplete() && !solveBudget.isExpired()) {
+                long chunkEnd = Math.min(checkpoint.getNextRank() + RANKS_PER_CHUNK, checkpoint.getToRank());
+                long reached = hamiltonCycle.search(workspace, checkpoint.getNextRank(), chunkEnd, solveBudget
+                        , (stops, distance) -> {
+                            offer(checkpoint, stops, workspace.schedule());
+                            return true;
+                        });
+                checkpoint.setNextRank(reached);
+
+                if (checkpointFile != null
+                        && System.nanoTime() - lastWrite >= TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMs)) {
+                    writeCheckpoint(checkpoint, checkpointFile);
+                    lastWrite = System.nanoTime();
+                }
+            }
+        }
+        if (checkpointFile != null) {
+            writeCheckpoint(checkpoint, checkpointFile);
+        }
+        return checkpoint;
+    }
+
+    //first route in rank order wins a tie, as in the single process search.
+    //stops is the search permutation, it is copied only when kept
+    private void offer(SolveCheckpoint checkpoint, int[] stops, RouteSchedule schedule) {
+        checkpoint.setExplored(checkpoint.getExplored() + 1);
+        routeEvaluator.evaluate(stops, stops.length, schedule);
+        if (!schedule.isFeasible()) {
+            return;
+        }
+        if (schedule.getDistance() < checkpoint.getMinDistance()) {
+            checkpoint.setMinDistance(schedule.getDistance());
+            checkpoint.setMinDistanceStops(stops.clone());
+        }
+        if (schedule.getTimeWait() < checkpoint.getMinWait()) {
+            checkpoint.setMinWait(schedule.getTimeWait());
+            checkpoint.setMinWaitStops(stops.clone());
+        }
+        if (schedule.getEndSecond() < checkpoint.getMinEndWork()) {
+            checkpoint.setMinEndWork(schedule.getEndSecond());
+            checkpoint.setMinEndWorkStops(stops.clone());
+        }
+    }
+
+    //later ranges only replace a best route when strictly better
+    public static SolveCheckpoint merge(String fingerprint, List<SolveCheckpoint> checkpoints) {
+        SolveCheckpoint merged = new SolveCheckpoint(fingerprint, 0, 0);
+        long remaining = 0;
+        for (SolveCheckpoint checkpoint : checkpoints) {
+            merged.setToRank(merged.getToRank() + checkpoint.getToRank() - checkpoint.getFromRank());
+            remaining += checkpoint.getToRank() - checkpoint.getNextRank();
+            merged.setExplored(merged.getExplored() + checkpoint.getExplored());
+            if (checkpoint.getMinDistance() < merged.getMinDistance()) {
+                merged.setMinDistance(checkpoint.getMinDistance());
+                merged.setMinDistanceStops(checkpoint.getMinDistanceStops());
+            }
+            if (checkpoint.getMinWait() < merged.getMinWait()) {
+                merged.setMinWait(checkpoint.getMinWait());
+                merged.setMinWaitStops(checkpoint.getMinWaitStops());
+            }
+            if (checkpoint.getMinEndWork() < merged.getMinEndWork()) {
+                merged.setMinEndWork(checkpoint.getMinEndWork());
+                merged.setMinEndWorkStops(checkpoint.getMinEndWorkStops());
+            }
+        }
+        merged.setNextRank(merged.getToRank() - remaining);
+        return merged;
+    }
+
+    public static SolveCheckpoint readCheckpoint(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return MAPPER.readValue(file.toFile(), SolveCheckpoint.class);
+    }
+
+    //written to a temporary file and moved over the old one,
+    //a crash during the write leaves the previous checkpoint intact
+    public static void writeCheckpoint(SolveCheckpoint checkpoint, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temporary.toFile(), checkpoint);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //SHA-256 of the serialized problem. The fingerprint only covers the points,
+    //this also covers the graph and speed factors, which change with the
+    //distance provider or road network while the points stay the same
+    public static String problemKey(SolveProblem problem) throws IOException {
+        byte[] serialized = MAPPER.writeValueAsBytes(problem);
+        return ProblemFingerprint.toHex(ProblemFingerprint.sha256(serialized, serialized.length));
+    }
+
+    public static SolveProblem readProblem(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), SolveProblem.class);
+    }
+
+    public static void writeProblem(SolveProblem problem, Path file) throws IOException {
+        MAPPER.writeValue(file.toFile(), problem);
+    }
+}
@@ -0,0 +1,639 @@
+package com.delivery.tsp.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+//road graph with a contraction hierarchy for fast shortest path queries.
+//
+//Graph file (an OSM extract converted offline), one record per line:
+//  n <nodeId> <latitude> <longitude>
+//  e <fromId> <toId> <meters>     road usable in both directions
+//  a <fromId> <toId> <meters>     one-way road
+//  # comment
+//
+//The hierarchy is written next to the graph file as <file>.ch and reused
+//while it is newer than the graph file
+public class RoadNetwork {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static Logger log = LoggerFactory.getLogger(RoadNetwork.class);
+
+    //2: hierarchies of version 1 missed shortcuts through 0 m arcs
+    private static final int CACHE_VERSION = 2;
+    private static final double EARTH_RADIUS = 6371000; //meters
+    //witness searches give up after this many settled nodes and add the shortcut;
+    //priority estimates only need a rough shortcut count
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 40;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    //edges a->b with rank[a] < rank[b], grouped by a (forward search goes up)
+    private final int[] upFirst;
+    private final int[] upTo;
+    private final int[] upWeight;
+    //edges a->b with rank[a] > rank[b], grouped by b (backward search goes up)
+    private final int[] downFirst;
+    private final int[] downFrom;
+    private final int[] downWeight;
+
+    private final ThreadLocal<SearchSpace> searchSpaces;
+
+    private RoadNetwork(double[] latitudes
+            , double[] longitudes
+            , int[] upFirst
+            , int[] upTo
+            , int[] upWeight
+            , int[] downFirst
+            , int[] downFrom
+            , int[] downWeight) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.upFirst = upFirst;
+        this.upTo = upTo;
+        this.upWeight = upWeight;
+        this.downFirst = downFirst;
+        this.downFrom = downFrom;
+        this.downWeight = downWeight;
+        this.searchSpaces = ThreadLocal.withInitial(() -> new SearchSpace(latitudes.length));
+    }
+
+    public static RoadNetwork load(Path graphFile) throws IOException {
+        Path cacheFile = graphFile.resolveSibling(graphFile.getFileName() + ".ch");
+        if (Files.exists(cacheFile)
+                && Files.getLastModifiedTime(cacheFile).compareTo(Files.getLastModifiedTime(graphFile)) >= 0) {
+            try {
+                return readCache(cacheFile);
+            } catch (IOException e) {
+                log.warn("ignoring unreadable contraction hierarchy {}: {}", cacheFile, e.getMessage());
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        RoadNetwork roadNetwork = new Builder(graphFile).build();
+        log.info("contraction hierarchy for {} nodes built in {} ms"
+                , roadNetwork.size(), System.currentTimeMillis() - start);
+        try {
+            roadNetwork.writeCache(cacheFile);
+        } catch (IOException e) {
+            log.warn("could not write contraction hierarchy {}: {}", cacheFile, e.getMessage());
+        }
+        return roadNetwork;
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    //scans with the approximate distance; only nodes whose approximate
+    //distance is within the error margin of the best one get the exact check
+    public int nearestNode(double latitude, double longitude) {
+        ApproximateDistance approximateDistance = new ApproximateDistance(latitude, 0);
+        int nearest = -1;
+        double nearestApproximate = Double.MAX_VALUE;
+        for (int node = 0; node < latitudes.length; node++) {
+            double distance = approximateDistance.meters(latitude, longitude, latitudes[node], longitudes[node]);
+            if (distance < nearestApproximate) {
+                nearestApproximate = distance;
+                nearest = node;
+            }
+        }
+        if (nearest < 0) {
+            return nearest;
+        }
+
+        //a node closer than the current best lies within that many meters
+        //of the query, which bounds its latitude offset for the error margin
+        double offsetDegrees = Math.toDegrees((2 * nearestApproximate + 1) / EARTH_RADIUS);
+        double margin = new ApproximateDistance(latitude, offsetDegrees).errorMargin(nearestApproximate);
+        double limit = nearestApproximate + 2 * margin;
+        double nearestExact = Distance.metersFrom(latitude, longitude, latitudes[nearest], longitudes[nearest]);
+        for (int node = 0; node < latitudes.length; node++) {
+            if (node == nearest
+                    || approximateDistance.meters(latitude, longitude, latitudes[node], longitudes[node]) > limit) {
+                continue;
+            }
+            double exact = Distance.metersFrom(latitude, longitude, latitudes[node], longitudes[node]);
+            if (exact < nearestExact) {
+                nearestExact = exact;
+                nearest = node;
+            }
+        }
+        return nearest;
+    }
+
+    public int metersToNode(int node, double latitude, double longitude) {
+        return (int) Math.round(Distance.metersFrom(latitude, longitude, latitudes[node], longitudes[node]));
+    }
+
+    //shortest road meters for every (source, target) pair, UNREACHABLE if none.
+    //Backward searches from the targets fill buckets on the nodes they settle,
+    //then each source row is one forward search scanning those buckets
+    public int[][] manyToMany(int[] sources, int[] targets) {
+        List<int[][]> backward = IntStream.range(0, targets.length)
+                .parallel()
+                .mapToObj(t -> searchSpaces.get().upwardSearch(targets[t], downFirst, downFrom, downWeight))
+                .collect(java.util.stream.Collectors.toList());
+
+        Map<Integer, List<int[]>> buckets = new HashMap<>();
+        for (int t = 0; t < targets.length; t++) {
+            int[][] space = backward.get(t);
+            for (int k = 0; k < space[0].length; k++) {
+                buckets.computeIfAbsent(space[0][k], node -> new ArrayList<>()).add(new int[]{t, space[1][k]});
+            }
+        }
+
+        int[][] result = new int[sources.length][targets.length];
+        IntStream.range(0, sources.length).parallel().forEach(s -> {
+            int[] row = result[s];
+            Arrays.fill(row, UNREACHABLE);
+            int[][] space = searchSpaces.get().upwardSearch(sources[s], upFirst, upTo, upWeight);
+            for (int k = 0; k < space[0].length; k++) {
+                List<int[]> bucket = buckets.get(space[0][k]);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int[] entry : bucket) {
+                    long distance = (long) space[1][k] + entry[1];
+                    if (distance < row[entry[0]]) {
+                        row[entry[0]] = (int) distance;
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    private void writeCache(Path cacheFile) throws IOException {
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(CACHE_VERSION);
+            writeDoubles(out, latitudes);
+            writeDoubles(out, longitudes);
+            for (int[] array : new int[][]{upFirst, upTo, upWeight, downFirst, downFrom, downWeight}) {
+                writeInts(out, array);
+            }
+        }
+        Files.move(tmp, cacheFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static RoadNetwork readCache(Path cacheFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_VERSION) {
+                throw new IOException("unsupported version");
+            }
+            return new RoadNetwork(readDoubles(in), readDoubles(in)
+                    , readInts(in), readInts(in), readInts(in)
+                    , readInts(in), readInts(in), readInts(in));
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    //per-thread Dijkstra state, reset through the touched list only
+    private static class SearchSpace {
+        private final int[] distance;
+        private final int[] touched;
+        private final LongHeap heap = new LongHeap();
+
+        private SearchSpace(int size) {
+            distance = new int[size];
+            touched = new int[size];
+            Arrays.fill(distance, UNREACHABLE);
+        }
+
+        //full Dijkstra over upward edges; returns {settled nodes, their distances}
+        private int[][] upwardSearch(int start, int[] first, int[] to, int[] weight) {
+            int touchedCount = 0;
+            int[] settled = new int[16];
+            int[] settledDistance = new int[16];
+            int settledCount = 0;
+
+            distance[start] = 0;
+            touched[touchedCount++] = start;
+            heap.push(0, start);
+            while (!heap.isEmpty()) {
+                long top = heap.pop();
+                int node = LongHeap.node(top);
+                int d = LongHeap.key(top);
+                if (d > distance[node]) {
+                    continue;
+                }
+                if (settledCount == settled.length) {
+                    settled = Arrays.copyOf(settled, settledCount * 2);
+                    settledDistance = Arrays.copyOf(settledDistance, settledCount * 2);
+                }
+                settled[settledCount] = node;
+                settledDistance[settledCount++] = d;
+                for (int e = first[node]; e < first[node + 1]; e++) {
+                    int next = to[e];
+                    int nd = d + weight[e];
+                    if (nd < distance[next]) {
+                        if (distance[next] == UNREACHABLE) {
+                            touched[touchedCount++] = next;
+                        }
+                        distance[next] = nd;
+                        heap.push(nd, next);
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                distance[touched[i]] = UNREACHABLE;
+            }
+            return new int[][]{Arrays.copyOf(settled, settledCount), Arrays.copyOf(settledDistance, settledCount)};
+        }
+    }
+
+    //binary min-heap of (key, node) packed into longs
+    private static class LongHeap {
+        private long[] items = new long[64];
+        private int size;
+
+        private static long pack(int key, int node) {
+            return ((long) key << 32) | (node & 0xFFFFFFFFL);
+        }
+
+        private static int key(long item) {
+            return (int) (item >> 32);
+        }
+
+        private static int node(long item) {
+            return (int) item;
+        }
+
+        private void push(int key, int node) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            int i = size++;
+            long item = pack(key, node);
+            while (i > 0 && items[(i - 1) >> 1] > item) {
+                items[i] = items[(i - 1) >> 1];
+                i = (i - 1) >> 1;
+            }
+            items[i] = item;
+        }
+
+        private long peek() {
+            return items[0];
+        }
+
+        private long pop() {
+            long top = items[0];
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && items[child + 1] < items[child]) {
+                    child++;
+                }
+                if (items[child] >= last) {
+                    break;
+                }
+                items[i] = items[child];
+                i = child;
+            }
+            if (size > 0) {
+                items[i] = last;
+            }
+            return top;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+
+    //parses the graph file and contracts nodes by lazy edge-difference order
+    private static class Builder {
+
+        private double[] latitudes = new double[1024];
+        private double[] longitudes = new double[1024];
+        private int nodeCount;
+
+        private int[][] outTo;
+        private int[][] outWeight;
+        private int[] outSize;
+        private int[][] inFrom;
+        private int[][] inWeight;
+        private int[] inSize;
+
+        private boolean[] contracted;
+        private int[] rank;
+        private int[] deletedNeighbours;
+
+        private int[] witnessDistance;
+        private int[] witnessTouched;
+        private final LongHeap witnessHeap = new LongHeap();
+
+        private Builder(Path graphFile) throws IOException {
+            Map<Long, Integer> nodeIndex = new HashMap<>();
+            List<long[]> arcs = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(graphFile)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] parts = line.split("\\s+");
+                    switch (parts[0]) {
+                        case "n":
+                            if (nodeCount == latitudes.length) {
+                                latitudes = Arrays.copyOf(latitudes, nodeCount * 2);
+                                longitudes = Arrays.copyOf(longitudes, nodeCount * 2);
+                            }
+                            nodeIndex.put(Long.parseLong(parts[1]), nodeCount);
+                            latitudes[nodeCount] = Double.parseDouble(parts[2]);
+                            longitudes[nodeCount++] = Double.parseDouble(parts[3]);
+                            break;
+                        case "e":
+                        case "a":
+                            long from = Long.parseLong(parts[1]);
+                            long to = Long.parseLong(parts[2]);
+                            long meters = Math.round(Double.parseDouble(parts[3]));
+                            arcs.add(new long[]{from, to, meters});
+                            if (parts[0].equals("e")) {
+                                arcs.add(new long[]{to, from, meters});
+                            }
+                            break;
+                        default:
+                            throw new IOException("Unknown record in road graph: " + line);
+                    }
+                }
+            }
+            if (nodeCount == 0) {
+                throw new IOException("Road graph " + graphFile + " has no nodes");
+            }
+            latitudes = Arrays.copyOf(latitudes, nodeCount);
+            longitudes = Arrays.copyOf(longitudes, nodeCount);
+
+            outTo = new int[nodeCount][];
+            outWeight = new int[nodeCount][];
+            outSize = new int[nodeCount];
+            inFrom = new int[nodeCount][];
+            inWeight = new int[nodeCount][];
+            inSize = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                outTo[node] = new int[4];
+                outWeight[node] = new int[4];
+                inFrom[node] = new int[4];
+                inWeight[node] = new int[4];
+            }
+            for (long[] arc : arcs) {
+                Integer from = nodeIndex.get(arc[0]);
+                Integer to = nodeIndex.get(arc[1]);
+                if (from == null || to == null) {
+                    throw new IOException("Road graph edge references unknown node: " + arc[0] + " -> " + arc[1]);
+                }
+                if (!from.equals(to)) {
+                    addArc(from, to, (int) Math.min(arc[2], UNREACHABLE / 4));
+                }
+            }
+
+            contracted = new boolean[nodeCount];
+            rank = new int[nodeCount];
+            deletedNeighbours = new int[nodeCount];
+            witnessDistance = new int[nodeCount];
+            witnessTouched = new int[nodeCount];
+            Arrays.fill(witnessDistance, UNREACHABLE);
+        }
+
+        private RoadNetwork build() {
+            //priorities can be negative, shift them into the key range
+            final int offset = 1 << 20;
+            LongHeap order = new LongHeap();
+            for (int node = 0; node < nodeCount; node++) {
+                order.push(priority(node) + offset, node);
+            }
+
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int node = LongHeap.node(order.pop());
+                //lazy update: contract only if still the cheapest
+                int current = priority(node) + offset;
+                if (!order.isEmpty() && current > LongHeap.key(order.peek())) {
+                    order.push(current, node);
+                    continue;
+                }
+                contract(node, true);
+                contracted[node] = true;
+                rank[node] = nextRank++;
+            }
+            return toRoadNetwork();
+        }
+
+        private int priority(int node) {
+            int shortcuts = contract(node, false);
+            int degree = 0;
+            for (int i = 0; i < inSize[node]; i++) {
+                if (!contracted[inFrom[node][i]]) degree++;
+            }
+            for (int i = 0; i < outSize[node]; i++) {
+                if (!contracted[outTo[node][i]]) degree++;
+            }
+            return shortcuts - degree + deletedNeighbours[node];
+        }
+
+        //adds (or with add=false only counts) the shortcuts needed to remove node
+        private int contract(int node, boolean add) {
+            int shortcuts = 0;
+            for (int i = 0; i < inSize[node]; i++) {
+                int from = inFrom[node][i];
+                if (contracted[from]) {
+                    continue;
+                }
+                int weightIn = inWeight[node][i];
+                //-1 = no out-arc left, a 0 m arc (rounded) still needs its shortcut
+                int maxOut = -1;
+                for (int j = 0; j < outSize[node]; j++) {
+                    int to = outTo[node][j];
+                    if (!contracted[to] && to != from) {
+                        maxOut = Math.max(maxOut, outWeight[node][j]);
+                    }
+                }
+                if (maxOut < 0) {
+                    continue;
+                }
+                witnessSearch(from, node, weightIn + maxOut
+                        , add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < outSize[node]; j++) {
+                    int to = outTo[node][j];
+                    if (contracted[to] || to == from) {
+                        continue;
+                    }
+                    int viaNode = weightIn + outWeight[node][j];
+                    if (witnessDistance[to] > viaNode) {
+                        shortcuts++;
+                        if (add) {
+                            addArc(from, to, viaNode);
+                        }
+                    }
+                }
+                resetWitness();
+            }
+            if (add) {
+                for (int i = 0; i < inSize[node]; i++) deletedNeighbours[inFrom[node][i]]++;
+                for (int i = 0; i < outSize[node]; i++) deletedNeighbours[outTo[node][i]]++;
+            }
+            return shortcuts;
+        }
+
+        private int witnessTouchedCount;
+
+        private void witnessSearch(int start, int skip, int maxDistance, int settleLimit) {
+            witnessHeap.clear();
+            witnessDistance[start] = 0;
+            witnessTouched[witnessTouchedCount++] = start;
+            witnessHeap.push(0, start);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < settleLimit) {
+                long top = witnessHeap.pop();
+                int node = LongHeap.node(top);
+                int d = LongHeap.key(top);
+                if (d > witnessDistance[node]) {
+                    continue;
+                }
+                if (d > maxDistance) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < outSize[node]; i++) {
+                    int next = outTo[node][i];
+                    if (next == skip || contracted[next]) {
+                        continue;
+                    }
+                    int nd = d + outWeight[node][i];
+                    if (nd < witnessDistance[next]) {
+                        if (witnessDistance[next] == UNREACHABLE) {
+                            witnessTouched[witnessTouchedCount++] = next;
+                        }
+                        witnessDistance[next] = nd;
+                        witnessHeap.push(nd, next);
+                    }
+                }
+            }
+        }
+
+        private void resetWitness() {
+            for (int i = 0; i < witnessTouchedCount; i++) {
+                witnessDistance[witnessTouched[i]] = UNREACHABLE;
+            }
+            witnessTouchedCount = 0;
+        }
+
+        private void addArc(int from, int to, int weight) {
+            for (int i = 0; i < outSize[from]; i++) {
+                if (outTo[from][i] == to) {
+                    if (weight < outWeight[from][i]) {
+                        outWeight[from][i] = weight;
+                        for (int j = 0; j < inSize[to]; j++) {
+                            if (inFrom[to][j] == from) {
+                                inWeight[to][j] = weight;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            if (outSize[from] == outTo[from].length) {
+                outTo[from] = Arrays.copyOf(outTo[from], outSize[from] * 2);
+                outWeight[from] = Arrays.copyOf(outWeight[from], outSize[from] * 2);
+            }
+            outTo[from][outSize[from]] = to;
+            outWeight[from][outSize[from]++] = weight;
+            if (inSize[to] == inFrom[to].length) {
+                inFrom[to] = Arrays.copyOf(inFrom[to], inSize[to] * 2);
+                inWeight[to] = Arrays.copyOf(inWeight[to], inSize[to] * 2);
+            }
+            inFrom[to][inSize[to]] = from;
+            inWeight[to][inSize[to]++] = weight;
+        }
+
+        private RoadNetwork toRoadNetwork() {
+            int[] upCount = new int[nodeCount + 1];
+            int[] downCount = new int[nodeCount + 1];
+            for (int from = 0; from < nodeCount; from++) {
+                for (int i = 0; i < outSize[from]; i++) {
+                    int to = outTo[from][i];
+                    if (rank[from] < rank[to]) upCount[from + 1]++;
+                    else downCount[to + 1]++;
+                }
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                upCount[node + 1] += upCount[node];
+                downCount[node + 1] += downCount[node];
+            }
+            int[] upTo = new int[upCount[nodeCount]];
+            int[] upWeight = new int[upTo.length];
+            int[] downFrom = new int[downCount[nodeCount]];
+            int[] downWeight = new int[downFrom.length];
+            int[] upNext = Arrays.copyOf(upCount, nodeCount);
+            int[] downNext = Arrays.copyOf(downCount, nodeCount);
+            for (int from = 0; from < nodeCount; from++) {
+                for (int i = 0; i < outSize[from]; i++) {
+                    int to = outTo[from][i];
+                    if (rank[from] < rank[to]) {
+                        upTo[upNext[from]] = to;
+                        upWeight[upNext[from]++] = outWeight[from][i];
+                    } else {
+                        downFrom[downNext[to]] = from;
+                        downWeight[downNext[to]++] = outWeight[from][i];
+                    }
+                }
+            }
+            return new RoadNetwork(latitudes, longitudes, upCount, upTo, upWeight, downCount, downFrom, downWeight);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.delivery.tsp.utils;
+
+//road distances from a contraction hierarchy built over a local graph file.
+//Every location is snapped to its nearest road node; the straight-line
+//access legs to and from those nodes are added to the road distance
+public class RoadNetworkDistanceProvider implements DistanceProvider {
+
+    public static final String NAME = "road";
+
+    private static final double METER_TO_KILOMETER = 1000.0;
+
+    private final RoadNetwork roadNetwork;
+
+    public RoadNetworkDistanceProvider(RoadNetwork roadNetwork) {
+        this.roadNetwork = roadNetwork;
+    }
+
+    @Override
+    public int[][] matrix(double[] latitudes, double[] longitudes) {
+        int size = latitudes.length;
+        int[] nodes = new int[size];
+        int[] accessMeters = new int[size];
+        snap(latitudes, longitudes, nodes, accessMeters);
+
+        int[][] meters = roadNetwork.manyToMany(nodes, nodes);
+        int[][] graph = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i == j) {
+                    continue;
+                }
+                if (meters[i][j] == RoadNetwork.UNREACHABLE) {
+                    throw new RuntimeException("No road between location " + i + " and " + j);
+                }
+                long total = (long) accessMeters[i] + meters[i][j] + accessMeters[j];
+                graph[i][j] = (int) Math.round(total / METER_TO_KILOMETER);
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public int[][] matrix(double[] fromLatitudes
+            , double[] fromLongitudes
+            , double[] toLatitudes
+            , double[] toLongitudes) {
+        int[] fromNodes = new int[fromLatitudes.length];
+        int[] fromAccessMeters = new int[fromLatitudes.length];
+        snap(fromLatitudes, fromLongitudes, fromNodes, fromAccessMeters);
+        int[] toNodes = new int[toLatitudes.length];
+        int[] toAccessMeters = new int[toLatitudes.length];
+        snap(toLatitudes, toLongitudes, toNodes, toAccessMeters);
+
+        int[][] meters = roadNetwork.manyToMany(fromNodes, toNodes);
+        int[][] graph = new int[fromNodes.length][toNodes.length];
+        for (int i = 0; i < fromNodes.length; i++) {
+            for (int j = 0; j < toNodes.length; j++) {
+                if (meters[i][j] == RoadNetwork.UNREACHABLE) {
+                    throw new RuntimeException("No road between location " + i + " and " + j);
+                }
+                long total = (long) fromAccessMeters[i] + meters[i][j] + toAccessMeters[j];
+                graph[i][j] = (int) Math.round(total / METER_TO_KILOMETER);
+            }
+        }
+        return graph;
+    }
+
+    private void snap(double[] latitudes, double[] longitudes, int[] nodes, int[] accessMeters) {
+        for (int i = 0; i < latitudes.length; i++) {
+            nodes[i] = roadNetwork.nearestNode(latitudes[i], longitudes[i]);
+            accessMeters[i] = roadNetwork.metersToNode(nodes[i], latitudes[i], longitudes[i]);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,97 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteSchedule;
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.util.List;
+
+//simulates the courier day for a stop order on a compiled ProblemInstance.
+//Stops are graph indexes: 0 is the depot, stop k is deliveryPointList.get(k-1).
+//Only int seconds of day are used, evaluate(stops, length, schedule) fills
+//a caller-owned schedule and allocates nothing
+public class RouteEvaluator {
+
+    private final ProblemInstance instance;
+
+    public RouteEvaluator(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , int[][] graph) {
+        this(ProblemInstance.compile(courierDto, deliveryPointList, graph));
+    }
+
+    public RouteEvaluator(ProblemInstance instance) {
+        this.instance = instance;
+    }
+
+    public RouteSchedule evaluate(int[] stops) {
+        return evaluate(stops, stops.length);
+    }
+
+    public RouteSchedule evaluate(int[] stops, int length) {
+        return evaluate(stops, length, new RouteSchedule());
+    }
+
+    //evaluates the first length stops of the array and the way back to the depot
+    public RouteSchedule evaluate(int[] stops, int length, RouteSchedule schedule) {
+        schedule.clear();
+        int begin = instance.getBegin();
+        int totalTime=0;
+        int timeWait=0;
+        int timeDrive=0;
+        int distance=0;
+        int from=0;
+
+        for (int i = 0; i < length; i++) {
+            int stop = stops[i];
+            distance += instance.distance(from, stop);
+            int drive = instance.travelSeconds(begin + totalTime, from, stop);
+            totalTime += drive;
+            timeDrive += drive;
+
+            int timeOnPoint = begin + totalTime;
+            if(instance.getWindowEnd(stop) < timeOnPoint){
+                schedule.setFailedPosition(i);
+                schedule.setFailedArrivalSecond(timeOnPoint);
+                schedule.setDistance(distance);
+                return schedule;
+            }
+            if(timeOnPoint < instance.getWindowStart(stop)){
+                int wait = instance.getWindowStart(stop) - timeOnPoint;
+                timeWait += wait;
+                totalTime += wait;
+            }
+            timeWait += instance.getServiceSeconds(stop);
+            totalTime += instance.getServiceSeconds(stop);
+            from = stop;
+        }
+
+        //return back
+        distance += instance.distance(from, 0);
+        int secondReturnBack = instance.travelSeconds(begin + totalTime, from, 0);
+        totalTime += secondReturnBack;
+        timeDrive += secondReturnBack;
+
+        schedule.setDistance(distance);
+        schedule.setTotalTime(totalTime);
+        schedule.setTimeWait(timeWait);
+        schedule.setTimeDrive(timeDrive);
+        schedule.setEndSecond(begin + totalTime);
+        schedule.setFeasible(begin + totalTime <= instance.getEnd());
+        return schedule;
+    }
+
+    public int distance(int[] stops, int length) {
+        int distance = 0;
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            distance += instance.distance(from, stops[i]);
+            from = stops[i];
+        }
+        return distance + instance.distance(from, 0);
+    }
+
+    public ProblemInstance getInstance() {
+        return instance;
+    }
+}
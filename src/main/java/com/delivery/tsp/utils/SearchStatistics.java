@@ -0,0 +1,33 @@
+package com.delivery.tsp.utils;
+
+//counters of one enumeration: routes handed to the consumer and
+//prefixes skipped by the time window pruning (each a whole block of routes)
+public class SearchStatistics {
+
+    private long explored;
+    private long prunedPrefixes;
+
+    public void explored() {
+        explored++;
+    }
+
+    public void prunedPrefix() {
+        prunedPrefixes++;
+    }
+
+    public long getExplored() {
+        return explored;
+    }
+
+    public long getPrunedPrefixes() {
+        return prunedPrefixes;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStatistics{" +
+                "explored=" + explored +
+                ", prunedPrefixes=" + prunedPrefixes +
+                '}';
+    }
+}
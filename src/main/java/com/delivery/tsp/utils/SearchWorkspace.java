@@ -0,0 +1,64 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.RouteSchedule;
+
+//scratch buffers of one running search: the permutation being enumerated
+//and a schedule to evaluate candidates into. Every thread keeps one, so
+//repeated solves on a worker thread reuse the same arrays. A search started
+//while the thread's workspace is busy (from inside a consumer) gets a fresh one
+public class SearchWorkspace implements AutoCloseable {
+
+    private static final ThreadLocal<SearchWorkspace> CURRENT = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    private final RouteSchedule schedule = new RouteSchedule();
+    private int[] permutation = new int[0];
+    private int[] sortedStops = new int[0];
+    private long[] visited = new long[0];
+    private boolean inUse;
+
+    private SearchWorkspace() {
+    }
+
+    //try-with-resources: close() hands the workspace back to the thread
+    public static SearchWorkspace acquire() {
+        SearchWorkspace workspace = CURRENT.get();
+        if (workspace.inUse) {
+            workspace = new SearchWorkspace();
+        }
+        workspace.inUse = true;
+        return workspace;
+    }
+
+    //reallocated only when the route length changes
+    public int[] permutation(int length) {
+        if (permutation.length != length) {
+            permutation = new int[length];
+        }
+        return permutation;
+    }
+
+    //the stops in ascending order, start of a rank range
+    public int[] sortedStops(int length) {
+        if (sortedStops.length != length) {
+            sortedStops = new int[length];
+        }
+        return sortedStops;
+    }
+
+    //visited set of a prefix check, see TimeWindowPruning.visitedWords()
+    public long[] visited(int words) {
+        if (visited.length != words) {
+            visited = new long[words];
+        }
+        return visited;
+    }
+
+    public RouteSchedule schedule() {
+        return schedule;
+    }
+
+    @Override
+    public void close() {
+        inUse = false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.delivery.tsp.utils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+//shortest feasible route found by any of the solvers running on one problem.
+//Solvers offer routes from their own threads and read getDistance() as
+//their pruning bound, so a route found by one cuts the search of the others
+public class SharedIncumbent {
+
+    private final AtomicReference<Incumbent> best = new AtomicReference<>();
+
+    //true when the route became the incumbent
+    public boolean offer(int distance, int[] stops, String strategy) {
+        Incumbent candidate = new Incumbent(distance, stops.clone(), strategy);
+        while (true) {
+            Incumbent current = best.get();
+            if (current != null && current.distance <= distance) {
+                return false;
+            }
+            if (best.compareAndSet(current, candidate)) {
+                return true;
+            }
+        }
+    }
+
+    //Integer.MAX_VALUE while no route was found
+    public int getDistance() {
+        Incumbent current = best.get();
+        return current != null ? current.distance : Integer.MAX_VALUE;
+    }
+
+    public int[] getStops() {
+        Incumbent current = best.get();
+        return current != null ? current.stops.clone() : null;
+    }
+
+    public String getStrategy() {
+        Incumbent current = best.get();
+        return current != null ? current.strategy : null;
+    }
+
+    private static class Incumbent {
+        private final int distance;
+        private final int[] stops;
+        private final String strategy;
+
+        private Incumbent(int distance, int[] stops, String strategy) {
+            this.distance = distance;
+            this.stops = stops;
+            this.strategy = strategy;
+        }
+    }
+}
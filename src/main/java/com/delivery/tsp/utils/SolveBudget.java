@@ -0,0 +1,110 @@
+package com.delivery.tsp.utils;
+
+import java.util.concurrent.TimeUnit;
+
+//time / iteration limit for one solve plus its cancellation token.
+//isExhausted() is called from the enumeration loop, so the clock is read
+//only every CLOCK_CHECK_INTERVAL iterations
+public class SolveBudget {
+
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final long maxIterations;
+    private final CancellationToken cancellationToken;
+    //stop once the distance is within this fraction of the lower bound, < 0 = never
+    private final double gapTolerance;
+    private boolean expired;
+
+    private SolveBudget(long timeLimitMillis
+            , long maxIterations
+            , double gapTolerance
+            , CancellationToken cancellationToken) {
+
+        this.hasDeadline = timeLimitMillis > 0;
+        this.deadlineNanos = hasDeadline
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis)
+                : 0;
+        this.maxIterations = maxIterations > 0 ? maxIterations : Long.MAX_VALUE;
+        this.cancellationToken = cancellationToken != null ? cancellationToken : new CancellationToken();
+        this.gapTolerance = gapTolerance;
+    }
+
+    public static SolveBudget unlimited() {
+        return new SolveBudget(0, 0, -1, null);
+    }
+
+    public static SolveBudget ofMillis(long timeLimitMillis) {
+        return new SolveBudget(timeLimitMillis, 0, -1, null);
+    }
+
+    public static SolveBudget ofIterations(long maxIterations) {
+        return new SolveBudget(0, maxIterations, -1, null);
+    }
+
+    //timeLimitMillis / maxIterations <= 0 mean "no limit"
+    public static SolveBudget of(long timeLimitMillis
+            , long maxIterations
+            , CancellationToken cancellationToken) {
+        return new SolveBudget(timeLimitMillis, maxIterations, -1, cancellationToken);
+    }
+
+    public static SolveBudget of(long timeLimitMillis
+            , long maxIterations
+            , double gapTolerance
+            , CancellationToken cancellationToken) {
+        return new SolveBudget(timeLimitMillis, maxIterations, gapTolerance, cancellationToken);
+    }
+
+    public boolean isExhausted(long iteration) {
+        if (expired) {
+            return true;
+        }
+        if (iteration >= maxIterations || cancellationToken.isCancelled()) {
+            expired = true;
+        } else if (hasDeadline
+                && (iteration & CLOCK_CHECK_MASK) == 0
+                && System.nanoTime() - deadlineNanos >= 0) {
+            expired = true;
+        }
+        return expired;
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public boolean isWithinGap(double gap) {
+        return gapTolerance >= 0 && gap <= gapTolerance;
+    }
+
+    public double getGapTolerance() {
+        return gapTolerance;
+    }
+
+    public long getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long remainingMillis() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveBudget{" +
+                "remainingMillis=" + (hasDeadline ? String.valueOf(remainingMillis()) : "unlimited") +
+                ", maxIterations=" + (maxIterations == Long.MAX_VALUE ? "unlimited" : String.valueOf(maxIterations)) +
+                ", gapTolerance=" + (gapTolerance < 0 ? "off" : String.valueOf(gapTolerance)) +
+                ", cancelled=" + cancellationToken.isCancelled() +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package com.delivery.tsp.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//Java Flight Recorder event for one phase of a route solve, shows up in a
+//recording (-XX:StartFlightRecording) next to GC and allocation events.
+//When no recording is running begin()/commit() are no-ops
+@Name("com.delivery.tsp.SolvePhase")
+@Label("Solve Phase")
+@Category({"TSP", "Solver"})
+@Description("One phase of DeliveryPointService.getMinPath")
+@StackTrace(false)
+public class SolvePhaseEvent extends Event {
+
+    public static final String REPOSITORY_LOAD = "repository load";
+    public static final String VALIDATION = "validation";
+    public static final String MATRIX_BUILD = "matrix build";
+    public static final String SEARCH = "search";
+    public static final String FORMATTING = "formatting";
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Points")
+    @Description("Delivery points of the instance")
+    private int points;
+
+    @Label("Candidates Explored")
+    @Description("Routes handed to evaluation")
+    private long explored;
+
+    @Label("Pruned Prefixes")
+    @Description("Route prefixes skipped by the time window pruning")
+    private long pruned;
+
+    @Label("Evaluation Time")
+    @Description("Part of the search spent evaluating routes")
+    @Timespan(Timespan.NANOSECONDS)
+    private long evaluationTime;
+
+    public static SolvePhaseEvent start(String phase) {
+        SolvePhaseEvent event = new SolvePhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int points) {
+        finish(points, 0, 0, 0);
+    }
+
+    public void finish(int points, long explored, long pruned, long evaluationTime) {
+        end();
+        if (shouldCommit()) {
+            this.points = points;
+            this.explored = explored;
+            this.pruned = pruned;
+            this.evaluationTime = evaluationTime;
+            commit();
+        }
+    }
+}
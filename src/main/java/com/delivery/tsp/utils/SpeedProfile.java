@@ -0,0 +1,96 @@
+package com.delivery.tsp.utils;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+//courier speed factor per time of day in BUCKET_SECONDS buckets, applied to
+//CourierDto.speed. Parsed from "07:00-10:00=0.6,16:30-19:00=0.5": each range
+//sets the factor of the buckets starting inside it, everything else is 1.0
+public class SpeedProfile {
+
+    public static final int BUCKET_SECONDS = 15 * 60;
+    public static final int BUCKETS = 24 * 60 * 60 / BUCKET_SECONDS;
+
+    private final double[] factors;
+    private final boolean constant;
+
+    private SpeedProfile(double[] factors) {
+        this.factors = factors;
+        this.constant = Arrays.stream(factors).allMatch(factor -> factor == 1.0);
+    }
+
+    public static SpeedProfile constant() {
+        double[] factors = new double[BUCKETS];
+        Arrays.fill(factors, 1.0);
+        return new SpeedProfile(factors);
+    }
+
+    //one factor per bucket, as returned by getFactors()
+    public static SpeedProfile of(double[] factors) {
+        if (factors == null) {
+            return constant();
+        }
+        if (factors.length != BUCKETS) {
+            throw new RuntimeException("Speed profile needs " + BUCKETS + " factors, got " + factors.length);
+        }
+        return new SpeedProfile(factors.clone());
+    }
+
+    public static SpeedProfile parse(String spec) {
+        double[] factors = new double[BUCKETS];
+        Arrays.fill(factors, 1.0);
+        if (spec == null || spec.trim().isEmpty()) {
+            return new SpeedProfile(factors);
+        }
+        for (String entry : spec.split(",")) {
+            String[] rangeAndFactor = entry.trim().split("=");
+            String[] range = rangeAndFactor.length == 2 ? rangeAndFactor[0].split("-") : new String[0];
+            if (range.length != 2) {
+                throw new RuntimeException("Speed profile entry must look like 07:00-10:00=0.6: " + entry);
+            }
+            int from = LocalTime.parse(range[0].trim()).toSecondOfDay();
+            int to = LocalTime.parse(range[1].trim()).toSecondOfDay();
+            double factor = Double.parseDouble(rangeAndFactor[1].trim());
+            if (factor <= 0) {
+                throw new RuntimeException("Speed factor must be positive: " + entry);
+            }
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                int start = bucket * BUCKET_SECONDS;
+                //a range may run over midnight, 22:00-06:00
+                boolean inside = from <= to ? start >= from && start < to : start >= from || start < to;
+                if (inside) {
+                    factors[bucket] = factor;
+                }
+            }
+        }
+        return new SpeedProfile(factors);
+    }
+
+    public static int bucket(int secondOfDay) {
+        return Math.floorMod(secondOfDay, 24 * 60 * 60) / BUCKET_SECONDS;
+    }
+
+    public double getFactor(int bucket) {
+        return factors[bucket];
+    }
+
+    public double[] getFactors() {
+        return factors.clone();
+    }
+
+    public double getMaxFactor() {
+        return Arrays.stream(factors).max().orElse(1.0);
+    }
+
+    public boolean isConstant() {
+        return constant;
+    }
+
+    @Override
+    public String toString() {
+        return "SpeedProfile{" +
+                "constant=" + constant +
+                ", maxFactor=" + getMaxFactor() +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.delivery.tsp.utils;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+//one layer of HeldKarpSolver's table as ints outside the heap: direct
+//buffers, or a memory-mapped file the OS pages in and out. A buffer holds
+//at most 2 GB, so the layer is split into chunks of CHUNK_INTS
+public class SubsetLayer {
+
+    private static final int CHUNK_BITS = 27;
+    private static final int CHUNK_INTS = 1 << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_INTS - 1;
+
+    private final long length;
+    private final ByteBuffer[] bytes;
+    private final IntBuffer[] chunks;
+
+    private SubsetLayer(long length, ByteBuffer[] bytes) {
+        this.length = length;
+        this.bytes = bytes;
+        this.chunks = new IntBuffer[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            chunks[i] = bytes[i].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    public static SubsetLayer direct(long length) {
+        ByteBuffer[] bytes = new ByteBuffer[chunkCount(length)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = ByteBuffer.allocateDirect(chunkLength(length, i) * Integer.BYTES);
+        }
+        return new SubsetLayer(length, bytes);
+    }
+
+    //-XX:MaxDirectMemorySize (the heap size when not set) minus the direct
+    //buffers in use, Long.MAX_VALUE when the JVM does not tell
+    public static long freeDirectBytes() {
+        HotSpotDiagnosticMXBean diagnostic = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (diagnostic == null) {
+            return Long.MAX_VALUE;
+        }
+        long max = Long.parseLong(diagnostic.getVMOption("MaxDirectMemorySize").getValue());
+        if (max <= 0) {
+            max = Runtime.getRuntime().maxMemory();
+        }
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                used = pool.getMemoryUsed();
+            }
+        }
+        return Math.max(0, max - used);
+    }
+
+    //READ_WRITE grows the file to the layer
+    public static SubsetLayer mapped(FileChannel channel, long length, FileChannel.MapMode mode) throws IOException {
+        MappedByteBuffer[] bytes = new MappedByteBuffer[chunkCount(length)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = channel.map(mode, (long) i * CHUNK_INTS * Integer.BYTES, (long) chunkLength(length, i) * Integer.BYTES);
+        }
+        return new SubsetLayer(length, bytes);
+    }
+
+    public int get(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    public void set(long index, int value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    //the first length ints, into a file at its start
+    public void writeTo(FileChannel channel, long length) throws IOException {
+        long position = 0;
+        for (int i = 0; i < chunks.length && position < length * Integer.BYTES; i++) {
+            ByteBuffer chunk = bytes[i].duplicate();
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), length * Integer.BYTES - position));
+            while (chunk.hasRemaining()) {
+                position += channel.write(chunk, position);
+            }
+        }
+    }
+
+    //a mapped layer reaches its file before the file is read again
+    public void force() {
+        for (ByteBuffer chunk : bytes) {
+            if (chunk instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    private static int chunkCount(long length) {
+        return (int) Math.max(1, (length + CHUNK_INTS - 1) >>> CHUNK_BITS);
+    }
+
+    private static int chunkLength(long length, int chunk) {
+        return (int) Math.min(CHUNK_INTS, length - (long) chunk * CHUNK_INTS);
+    }
+}
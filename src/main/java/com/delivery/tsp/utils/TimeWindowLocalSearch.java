@@ -0,0 +1,291 @@
+package com.delivery.tsp.utils;
+
+//2-opt, relocate and exchange on a stop order with delivery windows, where a
+//move is checked in constant time instead of re-simulating the whole day.
+//Every route piece is summarised as a Segment (Vidal's time window segments,
+//a generalisation of Savelsbergh's forward time slack): its duration, the
+//earliest / latest time its first service can start without waiting or
+//arriving late inside the piece, and the time warp (total lateness) it cannot
+//avoid. Two summaries concatenate in O(1), so with the prefix and suffix
+//summaries of the current route and a middle piece grown one stop at a time,
+//every candidate costs a few concatenations.
+//A route is feasible for RouteEvaluator exactly when its time warp is 0
+//(depot departure at beginWorkDay, return by endWorkDay), moves are
+//accepted on (time warp, distance), so an infeasible start route is repaired
+//first. Only valid for constant speed: with time-dependent travel a piece
+//has no single duration
+public class TimeWindowLocalSearch {
+
+    private static final int TWO_OPT = 0;
+    private static final int RELOCATE_FORWARD = 1;
+    private static final int RELOCATE_BACKWARD = 2;
+    private static final int EXCHANGE = 3;
+
+    //passes over all positions; every applied move strictly lowers
+    //(time warp, distance), the cap only bounds the work per call
+    private static final int MAX_PASSES = 64;
+
+    //read only, the scratch segments of a run are local to improve()
+    private final ProblemInstance instance;
+
+    public TimeWindowLocalSearch(ProblemInstance instance) {
+        if (instance.isTimeDependent()) {
+            throw new RuntimeException("Slack based local search needs a constant courier speed");
+        }
+        this.instance = instance;
+    }
+
+    //best improving move from every position, applied, until none is left,
+    //MAX_PASSES are done or the budget runs out. Returns the improved stop
+    //order (a new array)
+    public int[] improve(int[] route, SolveBudget solveBudget) {
+        int n = route.length;
+        //node sequence with the depot at both ends
+        int[] nodes = new int[n + 2];
+        System.arraycopy(route, 0, nodes, 1, n);
+        Segment[] forward = segments(n + 2);
+        Segment[] backward = segments(n + 2);
+        Segment middle = new Segment();
+        Segment candidate = new Segment();
+        Segment moved = new Segment();
+        Segment bestMove = new Segment();
+        Segment previous = new Segment();
+        long iteration = 0;
+
+        summarise(nodes, forward, backward, moved);
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+            improved = false;
+            for (int i = 1; i <= n; i++) {
+                Segment current = forward[n + 1];
+                bestMove.set(current);
+                int bestType = -1;
+                int bestJ = -1;
+
+                //2-opt: reverse nodes i..j
+                node(nodes[i], middle);
+                for (int j = i + 1; j <= n; j++) {
+                    if (solveBudget.isExhausted(iteration++)) {
+                        return copy(nodes, n);
+                    }
+                    concat(node(nodes[j], candidate), middle, middle);
+                    concat(concat(forward[i - 1], middle, candidate), backward[j + 1], candidate);
+                    if (isBetter(candidate, bestMove)) {
+                        bestMove.set(candidate);
+                        bestType = TWO_OPT;
+                        bestJ = j;
+                    }
+                }
+
+                //relocate forward: node i after node j
+                for (int j = i + 1; j <= n; j++) {
+                    if (solveBudget.isExhausted(iteration++)) {
+                        return copy(nodes, n);
+                    }
+                    if (j == i + 1) {
+                        node(nodes[j], middle);
+                    } else {
+                        concat(middle, node(nodes[j], candidate), middle);
+                    }
+                    concat(forward[i - 1], middle, candidate);
+                    concat(candidate, node(nodes[i], moved), candidate);
+                    concat(candidate, backward[j + 1], candidate);
+                    if (isBetter(candidate, bestMove)) {
+                        bestMove.set(candidate);
+                        bestType = RELOCATE_FORWARD;
+                        bestJ = j;
+                    }
+                }
+
+                //relocate backward: node i before node j
+                for (int j = i - 1; j >= 1; j--) {
+                    if (solveBudget.isExhausted(iteration++)) {
+                        return copy(nodes, n);
+                    }
+                    if (j == i - 1) {
+                        node(nodes[j], middle);
+                    } else {
+                        concat(node(nodes[j], candidate), middle, middle);
+                    }
+                    concat(forward[j - 1], node(nodes[i], candidate), candidate);
+                    concat(candidate, middle, candidate);
+                    concat(candidate, backward[i + 1], candidate);
+                    if (isBetter(candidate, bestMove)) {
+                        bestMove.set(candidate);
+                        bestType = RELOCATE_BACKWARD;
+                        bestJ = j;
+                    }
+                }
+
+                //exchange nodes i and j, the stops between stay in place
+                for (int j = i + 1; j <= n; j++) {
+                    if (solveBudget.isExhausted(iteration++)) {
+                        return copy(nodes, n);
+                    }
+                    if (j == i + 2) {
+                        node(nodes[i + 1], middle);
+                    } else if (j > i + 2) {
+                        concat(middle, node(nodes[j - 1], candidate), middle);
+                    }
+                    concat(forward[i - 1], node(nodes[j], candidate), candidate);
+                    if (j > i + 1) {
+                        concat(candidate, middle, candidate);
+                    }
+                    concat(candidate, node(nodes[i], moved), candidate);
+                    concat(candidate, backward[j + 1], candidate);
+                    if (isBetter(candidate, bestMove)) {
+                        bestMove.set(candidate);
+                        bestType = EXCHANGE;
+                        bestJ = j;
+                    }
+                }
+
+                if (bestType >= 0) {
+                    previous.set(current);
+                    int[] before = nodes.clone();
+                    apply(nodes, bestType, i, bestJ);
+                    summarise(nodes, forward, backward, moved);
+                    //the applied route must really be better, or the search stops
+                    if (!isBetter(forward[n + 1], previous)) {
+                        return copy(before, n);
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return copy(nodes, n);
+    }
+
+    private static void apply(int[] nodes, int type, int i, int j) {
+        int stop = nodes[i];
+        switch (type) {
+            case TWO_OPT:
+                for (int left = i, right = j; left < right; left++, right--) {
+                    int temp = nodes[left];
+                    nodes[left] = nodes[right];
+                    nodes[right] = temp;
+                }
+                break;
+            case RELOCATE_FORWARD:
+                System.arraycopy(nodes, i + 1, nodes, i, j - i);
+                nodes[j] = stop;
+                break;
+            case RELOCATE_BACKWARD:
+                System.arraycopy(nodes, j, nodes, j + 1, i - j);
+                nodes[j] = stop;
+                break;
+            default:
+                nodes[i] = nodes[j];
+                nodes[j] = stop;
+        }
+    }
+
+    //forward[k] = nodes[0..k], backward[k] = nodes[k..n+1]
+    private void summarise(int[] nodes, Segment[] forward, Segment[] backward, Segment scratch) {
+        int last = nodes.length - 1;
+        depotStart(forward[0]);
+        for (int k = 1; k < last; k++) {
+            concat(forward[k - 1], node(nodes[k], scratch), forward[k]);
+        }
+        concat(forward[last - 1], depotEnd(scratch), forward[last]);
+
+        depotEnd(backward[last]);
+        for (int k = last - 1; k >= 1; k--) {
+            concat(node(nodes[k], scratch), backward[k + 1], backward[k]);
+        }
+        concat(depotStart(scratch), backward[1], backward[0]);
+    }
+
+    //lexicographic: less lateness first, then shorter
+    private static boolean isBetter(Segment candidate, Segment current) {
+        if (candidate.timeWarp != current.timeWarp) {
+            return candidate.timeWarp < current.timeWarp;
+        }
+        return candidate.distance < current.distance;
+    }
+
+    private Segment node(int stop, Segment into) {
+        into.first = stop;
+        into.last = stop;
+        into.distance = 0;
+        into.duration = instance.getServiceSeconds(stop);
+        into.timeWarp = 0;
+        into.earliest = instance.getWindowStart(stop);
+        into.latest = instance.getWindowEnd(stop);
+        return into;
+    }
+
+    //the courier leaves at beginWorkDay, waiting happens at the stops
+    private Segment depotStart(Segment into) {
+        node(0, into);
+        into.earliest = instance.getBegin();
+        into.latest = instance.getBegin();
+        return into;
+    }
+
+    private Segment depotEnd(Segment into) {
+        node(0, into);
+        into.earliest = instance.getBegin();
+        into.latest = instance.getEnd();
+        return into;
+    }
+
+    //a then b; into may be a or b
+    private Segment concat(Segment a, Segment b, Segment into) {
+        int travel = instance.fastestTravelSeconds(a.last, b.first);
+        int delta = a.duration - a.timeWarp + travel;
+        int waitTime = Math.max(b.earliest - delta - a.latest, 0);
+        int timeWarp = Math.max(a.earliest + delta - b.latest, 0);
+
+        int first = a.first;
+        int last = b.last;
+        int distance = a.distance + b.distance + instance.distance(a.last, b.first);
+        int duration = a.duration + b.duration + travel + waitTime;
+        int totalWarp = a.timeWarp + b.timeWarp + timeWarp;
+        int earliest = Math.max(b.earliest - delta, a.earliest) - waitTime;
+        int latest = Math.min(b.latest - delta, a.latest) + timeWarp;
+
+        into.first = first;
+        into.last = last;
+        into.distance = distance;
+        into.duration = duration;
+        into.timeWarp = totalWarp;
+        into.earliest = earliest;
+        into.latest = latest;
+        return into;
+    }
+
+    private static Segment[] segments(int size) {
+        Segment[] segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment();
+        }
+        return segments;
+    }
+
+    private static int[] copy(int[] nodes, int n) {
+        int[] route = new int[n];
+        System.arraycopy(nodes, 1, route, 0, n);
+        return route;
+    }
+
+    private static final class Segment {
+        private int first;
+        private int last;
+        private int distance;
+        private int duration;
+        private int timeWarp;
+        private int earliest;
+        private int latest;
+
+        private void set(Segment other) {
+            first = other.first;
+            last = other.last;
+            distance = other.distance;
+            duration = other.duration;
+            timeWarp = other.timeWarp;
+            earliest = other.earliest;
+            latest = other.latest;
+        }
+    }
+}
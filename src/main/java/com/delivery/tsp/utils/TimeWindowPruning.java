@@ -0,0 +1,291 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.util.List;
+
+//preprocessing of the delivery windows before any search.
+//Tightens the earliest / latest service start of every stop from its
+//neighbours, marks arcs i->j that can never be driven on time and derives
+//precedences "j must come before i" (i before j would reach j too late).
+//All bounds are lower bounds of what RouteEvaluator computes, so nothing
+//feasible is ever pruned
+public class TimeWindowPruning {
+
+    private static final int MAX_TIGHTEN_PASSES = 16;
+
+    private final int size;
+    private final int[] earliest;
+    private final int[] latest;
+    private final boolean[][] infeasibleArc;
+    //bit i of the row predecessors[j] set: stop i must be visited before
+    //stop j. A row has one word per 64 stops, see visitedWords()
+    private final long[][] predecessors;
+    private final int infeasibleArcCount;
+    private final int precedenceCount;
+    //every stop order is on time without waiting
+    private final boolean orderIndependent;
+
+    private TimeWindowPruning(int size
+            , int[] earliest
+            , int[] latest
+            , boolean[][] infeasibleArc
+            , long[][] predecessors
+            , int infeasibleArcCount
+            , int precedenceCount
+            , boolean orderIndependent) {
+        this.size = size;
+        this.earliest = earliest;
+        this.latest = latest;
+        this.infeasibleArc = infeasibleArc;
+        this.predecessors = predecessors;
+        this.infeasibleArcCount = infeasibleArcCount;
+        this.precedenceCount = precedenceCount;
+        this.orderIndependent = orderIndependent;
+    }
+
+    public static TimeWindowPruning of(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , int[][] graph){
+        return of(ProblemInstance.compile(courierDto, deliveryPointList, graph));
+    }
+
+    //with time-dependent speeds the fastest time of a leg over the day
+    //keeps every bound a lower bound
+    public static TimeWindowPruning of(ProblemInstance instance){
+
+        int size = instance.size();
+        int begin = instance.getBegin();
+        int end = instance.getEnd();
+
+        int[][] travel = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                travel[i][j] = instance.fastestTravelSeconds(i, j);
+            }
+        }
+
+        int[] service = new int[size];
+        int[] earliest = new int[size];
+        int[] latest = new int[size];
+        earliest[0] = begin;
+        latest[0] = end;
+        for (int k = 1; k < size; k++) {
+            service[k] = instance.getServiceSeconds(k);
+            earliest[k] = Math.max(instance.getWindowStart(k), begin + travel[0][k]);
+            latest[k] = Math.min(instance.getWindowEnd(k), end - service[k] - travel[k][0]);
+        }
+
+        boolean[][] infeasibleArc = new boolean[size][size];
+        boolean changed = true;
+        for (int pass = 0; changed && pass < MAX_TIGHTEN_PASSES; pass++) {
+            changed = false;
+            markInfeasibleArcs(earliest, latest, service, travel, infeasibleArc);
+
+            for (int j = 1; j < size; j++) {
+                //some feasible predecessor has to deliver us here
+                int bestArrival = Integer.MAX_VALUE;
+                for (int i = 0; i < size; i++) {
+                    if (i != j && !infeasibleArc[i][j]) {
+                        bestArrival = Math.min(bestArrival, earliest[i] + service[i] + travel[i][j]);
+                    }
+                }
+                if (bestArrival != Integer.MAX_VALUE && bestArrival > earliest[j]) {
+                    earliest[j] = bestArrival;
+                    changed = true;
+                }
+
+                //and some feasible successor (or the office) has to be reached from here
+                int lastStart = Integer.MIN_VALUE;
+                for (int k = 0; k < size; k++) {
+                    if (k != j && !infeasibleArc[j][k]) {
+                        lastStart = Math.max(lastStart, latest[k] - service[j] - travel[j][k]);
+                    }
+                }
+                if (lastStart != Integer.MIN_VALUE && lastStart < latest[j]) {
+                    latest[j] = lastStart;
+                    changed = true;
+                }
+            }
+        }
+        int infeasibleArcCount = markInfeasibleArcs(earliest, latest, service, travel, infeasibleArc);
+
+        //i anywhere before j: j is reached no earlier than the shortest path i->j
+        //over the whole-second legs the evaluator adds up allows
+        int[][] shortest = shortestPaths(travel);
+        long[][] predecessors = new long[size][words(size)];
+        int precedenceCount = 0;
+        for (int i = 1; i < size; i++) {
+            for (int j = 1; j < size; j++) {
+                int reachJ = earliest[i] + service[i] + shortest[i][j];
+                if (i != j && reachJ > latest[j]) {
+                    predecessors[i][j >>> 6] |= 1L << j;
+                    precedenceCount++;
+                }
+            }
+        }
+
+        return new TimeWindowPruning(size, earliest, latest, infeasibleArc
+                , predecessors, infeasibleArcCount, precedenceCount
+                , isOrderIndependent(instance, travel, shortest));
+    }
+
+    //no stop can be reached before its window opens (shortest path from the
+    //depot) and the longest conceivable day, every leg at its slowest
+    //outgoing arc and no waiting, still meets every window and endWorkDay.
+    //Then the schedule of a route only depends on its legs, not on the order
+    //they are driven in. Never with time-dependent speeds, there the clock
+    //picks the speed of a leg
+    private static boolean isOrderIndependent(ProblemInstance instance
+            , int[][] travel
+            , int[][] shortest) {
+        if (instance.isTimeDependent()) {
+            return false;
+        }
+        int size = travel.length;
+        long longestDay = instance.getBegin();
+        for (int i = 0; i < size; i++) {
+            int slowest = 0;
+            for (int j = 0; j < size; j++) {
+                slowest = Math.max(slowest, travel[i][j]);
+            }
+            longestDay += slowest + instance.getServiceSeconds(i);
+        }
+        if (longestDay > instance.getEnd()) {
+            return false;
+        }
+        for (int k = 1; k < size; k++) {
+            if (instance.getBegin() + shortest[0][k] < instance.getWindowStart(k)
+                    || longestDay > instance.getWindowEnd(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int markInfeasibleArcs(int[] earliest
+            , int[] latest
+            , int[] service
+            , int[][] travel
+            , boolean[][] infeasibleArc) {
+        int size = earliest.length;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i == j) {
+                    continue;
+                }
+                //no stop can be served at all: every arc into it is dead
+                boolean dead = earliest[i] > latest[i] || earliest[j] > latest[j];
+                if (dead || earliest[i] + service[i] + travel[i][j] > latest[j]) {
+                    infeasibleArc[i][j] = true;
+                }
+                if (infeasibleArc[i][j]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int[][] shortestPaths(int[][] graph) {
+        int size = graph.length;
+        int[][] shortest = new int[size][];
+        for (int i = 0; i < size; i++) {
+            shortest[i] = graph[i].clone();
+        }
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if (shortest[i][k] + shortest[k][j] < shortest[i][j]) {
+                        shortest[i][j] = shortest[i][k] + shortest[k][j];
+                    }
+                }
+            }
+        }
+        return shortest;
+    }
+
+    public boolean isInfeasibleArc(int from, int to) {
+        return infeasibleArc[from][to];
+    }
+
+    //false when a stop that must precede stop is not yet in visitedMask.
+    //The mask holds stops 0..63, a predecessor above them is never visited
+    public boolean canVisit(int stop, long visitedMask) {
+        long[] row = predecessors[stop];
+        if ((row[0] & ~visitedMask) != 0) {
+            return false;
+        }
+        for (int w = 1; w < row.length; w++) {
+            if (row[w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //same with stop k as bit k of the words of visited, any size
+    public boolean canVisit(int stop, long[] visited) {
+        long[] row = predecessors[stop];
+        for (int w = 0; w < row.length; w++) {
+            if ((row[w] & ~visited[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //before comes first in every feasible route
+    public boolean isForcedBefore(int before, int after) {
+        return (predecessors[after][before >>> 6] & (1L << before)) != 0;
+    }
+
+    //length of a visited set for canVisit(int, long[])
+    public int visitedWords() {
+        return words(size);
+    }
+
+    private static int words(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public boolean isOrderIndependent() {
+        return orderIndependent;
+    }
+
+    public boolean hasPrecedences() {
+        return precedenceCount > 0;
+    }
+
+    public int getEarliest(int stop) {
+        return earliest[stop];
+    }
+
+    public int getLatest(int stop) {
+        return latest[stop];
+    }
+
+    public int getInfeasibleArcCount() {
+        return infeasibleArcCount;
+    }
+
+    public int getPrecedenceCount() {
+        return precedenceCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeWindowPruning{" +
+                "stops=" + (size - 1) +
+                ", infeasibleArcs=" + infeasibleArcCount + "/" + (size * (size - 1)) +
+                ", precedences=" + precedenceCount +
+                ", orderIndependent=" + orderIndependent +
+                '}';
+    }
+}
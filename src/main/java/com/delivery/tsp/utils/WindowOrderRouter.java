@@ -0,0 +1,214 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.model.DeliveryPoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+//dynamic programming over routes that stay close to delivery window order
+//(Balas-Simonetti). Stops are sorted by deliveryTo, then deliveryFrom, and a
+//stop may not be visited after one that is maxDisplacement or more places
+//later in that order. A state is the first unvisited stop f, the visited
+//stops among the next k-1 and the last stop, which lies at most k places
+//before f: O(n k 2^k) states, linear in n for a fixed k.
+//Every state keeps the Pareto set of (distance, elapsed time) labels, with
+//time windows a longer but earlier partial route can still be the one that
+//fits. Times follow RouteEvaluator's arithmetic, so a returned order is
+//feasible for it. With maxDisplacement >= n nothing is excluded and the
+//result is the exact optimum. With time-dependent speeds a later departure
+//can arrive earlier (bucket boundaries), then the time dominance is a heuristic
+public class WindowOrderRouter {
+
+    //2^(k-1) masks per first unvisited stop
+    public static final int MAX_DISPLACEMENT = 16;
+
+    private final ProblemInstance instance;
+    private final int size;
+    private final int begin;
+    private final int end;
+    //by position in window order: graph index, window, service time
+    private final int[] order;
+    private final int[] deliveryFrom;
+    private final int[] deliveryTo;
+    private final int[] spendSeconds;
+
+    public WindowOrderRouter(CourierDto courierDto
+            , List<DeliveryPoint> deliveryPointList
+            , int[][] graph) {
+        this(ProblemInstance.compile(courierDto, deliveryPointList, graph));
+    }
+
+    public WindowOrderRouter(ProblemInstance instance) {
+        this.instance = instance;
+        this.size = instance.size() - 1;
+        this.begin = instance.getBegin();
+        this.end = instance.getEnd();
+
+        this.order = IntStream.rangeClosed(1, size)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(instance::getWindowEnd)
+                        .thenComparingInt(instance::getWindowStart))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        this.deliveryFrom = new int[size];
+        this.deliveryTo = new int[size];
+        this.spendSeconds = new int[size];
+        for (int position = 0; position < size; position++) {
+            deliveryFrom[position] = instance.getWindowStart(order[position]);
+            deliveryTo[position] = instance.getWindowEnd(order[position]);
+            spendSeconds[position] = instance.getServiceSeconds(order[position]);
+        }
+    }
+
+    //shortest feasible stop order (graph indexes) within the displacement,
+    //null when there is none or the budget ran out first
+    public int[] solve(int maxDisplacement, SolveBudget solveBudget) {
+        if (maxDisplacement < 1 || maxDisplacement > MAX_DISPLACEMENT) {
+            throw new RuntimeException("Max displacement must be between 1 and " + MAX_DISPLACEMENT);
+        }
+        int k = Math.min(maxDisplacement, Math.max(1, size));
+        if (size == 0) {
+            return new int[0];
+        }
+
+        Map<Long, List<Label>> layer = new HashMap<>();
+        layer.put(key(0, 0, -1, k), new ArrayList<>(List.of(new Label(-1, 0, 0, null))));
+        long count = 0;
+
+        for (int visited = 0; visited < size; visited++) {
+            Map<Long, List<Label>> next = new HashMap<>();
+            for (Map.Entry<Long, List<Label>> state : layer.entrySet()) {
+                long stateKey = state.getKey();
+                int lastOffset = (int) (stateKey % (2 * k + 1)) - k;
+                long rest = stateKey / (2 * k + 1);
+                int mask = (int) (rest & ((1L << (k - 1)) - 1));
+                int first = (int) (rest >>> (k - 1));
+                int last = first + lastOffset;
+
+                for (int d = 0; d < k && first + d < size; d++) {
+                    if (d > 0 && (mask & (1 << (d - 1))) != 0) {
+                        continue;
+                    }
+                    int position = first + d;
+                    int nextFirst = first;
+                    int nextMask = mask | (d > 0 ? 1 << (d - 1) : 0);
+                    if (d == 0) {
+                        nextFirst = first + 1;
+                        while ((nextMask & 1) != 0) {
+                            nextMask >>>= 1;
+                            nextFirst++;
+                        }
+                        nextMask >>>= 1;
+                    }
+                    long nextKey = key(nextFirst, nextMask, position - nextFirst, k);
+
+                    for (Label label : state.getValue()) {
+                        if (solveBudget.isExhausted(count++)) {
+                            return null;
+                        }
+                        Label extended = extend(label, last, position);
+                        if (extended != null) {
+                            addPareto(next.computeIfAbsent(nextKey, key -> new ArrayList<>()), extended);
+                        }
+                    }
+                }
+            }
+            layer = next;
+        }
+
+        Label best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (List<Label> labels : layer.values()) {
+            for (Label label : labels) {
+                int mesure = instance.distance(order[label.position], 0);
+                int time = label.time;
+                time += instance.travelSeconds(begin + time, order[label.position], 0);
+                if (begin + time > end) {
+                    continue;
+                }
+                if (label.distance + mesure < bestDistance) {
+                    bestDistance = label.distance + mesure;
+                    best = label;
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        int[] stops = new int[size];
+        int index = size;
+        for (Label label = best; label.position >= 0; label = label.parent) {
+            stops[--index] = order[label.position];
+        }
+        return stops;
+    }
+
+    //smallest displacement that excludes no feasible route: one more than the
+    //largest window order distance of two stops that can still swap places,
+    //the later one not forced behind the earlier one by the pruning.
+    //solve() with it is exact when the speed is constant
+    public int exactDisplacement(TimeWindowPruning pruning) {
+        int gap = 0;
+        for (int a = 0; a < size; a++) {
+            for (int b = a + gap + 1; b < size; b++) {
+                if (!pruning.isForcedBefore(order[a], order[b])) {
+                    gap = b - a;
+                }
+            }
+        }
+        return gap + 1;
+    }
+
+    private Label extend(Label label, int last, int position) {
+        int from = last < 0 ? 0 : order[last];
+        int mesure = instance.distance(from, order[position]);
+        int time = label.time;
+        time += instance.travelSeconds(begin + time, from, order[position]);
+        int arrival = begin + time;
+        if (arrival > deliveryTo[position]) {
+            return null;
+        }
+        if (arrival < deliveryFrom[position]) {
+            time += deliveryFrom[position] - arrival;
+        }
+        time += spendSeconds[position];
+        return new Label(position, label.distance + mesure, time, label);
+    }
+
+    //keeps only labels no other label beats on both distance and time
+    private static void addPareto(List<Label> labels, Label candidate) {
+        for (Label label : labels) {
+            if (label.distance <= candidate.distance && label.time <= candidate.time) {
+                return;
+            }
+        }
+        labels.removeIf(label -> candidate.distance <= label.distance && candidate.time <= label.time);
+        labels.add(candidate);
+    }
+
+    private static long key(int first, int mask, int lastOffset, int k) {
+        return (((long) first << (k - 1)) | mask) * (2 * k + 1) + lastOffset + k;
+    }
+
+    private static class Label {
+        private final int position;
+        private final int distance;
+        //seconds since the start of the work day, as RouteEvaluator's totalTime
+        private final int time;
+        private final Label parent;
+
+        private Label(int position, int distance, int time, Label parent) {
+            this.position = position;
+            this.distance = distance;
+            this.time = time;
+            this.parent = parent;
+        }
+    }
+}
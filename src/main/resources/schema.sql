@@ -0,0 +1,24 @@
+-- distance table of PointDistance, filled and maintained by DistanceTable
+CREATE TABLE IF NOT EXISTS point_distance (
+    provider VARCHAR(32) NOT NULL,
+    from_id INT NOT NULL,
+    to_id INT NOT NULL,
+    distance INT NOT NULL,
+    PRIMARY KEY (provider, from_id, to_id),
+    KEY point_distance_to (provider, to_id)
+);
+
+-- solved routes per courier and depot, warm starts of RouteHistory
+CREATE TABLE IF NOT EXISTS historical_route (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    courier_id VARCHAR(64) NOT NULL,
+    depot VARCHAR(32) NOT NULL,
+    point_ids TEXT NOT NULL,
+    distance INT NOT NULL,
+    time_wait INT NOT NULL,
+    end_second INT NOT NULL,
+    proven BOOLEAN NOT NULL,
+    solved_at DATETIME NOT NULL,
+    PRIMARY KEY (id),
+    KEY historical_route_courier (courier_id, depot, solved_at)
+);
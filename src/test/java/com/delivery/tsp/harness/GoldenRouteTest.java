@@ -0,0 +1,135 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.dto.RouteResult;
+import com.delivery.tsp.service.DeliveryPointService;
+import com.delivery.tsp.service.impl.HeldKarpCoordinator;
+import com.delivery.tsp.service.impl.SolverPortfolio;
+import com.delivery.tsp.utils.ProblemInstance;
+import com.delivery.tsp.utils.SolveBudget;
+import com.delivery.tsp.utils.TimeWindowPruning;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// golden.csv holds optimal distances found by the plain (unpruned) exhaustive enumeration,
+// heldKarpOnTime is false where the shortest route of the Held-Karp DP (windows only
+// prune arcs there) is late, so its answer is a repaired route and not proven
+class GoldenRouteTest {
+
+    @Test
+    void solveMatchesGoldenDistances() throws Exception {
+        assertTrue(checkGolden(LoadHarness::newService) > 0);
+    }
+
+    //golden instances have at most 9 points, a displacement of 10 excludes no order
+    @Test
+    void windowOrderRouterMatchesGoldenDistances() throws Exception {
+        assertTrue(checkGolden(day -> LoadHarness.newService(day, 10)) > 0);
+    }
+
+    @Test
+    void solverPortfolioMatchesGoldenDistances() throws Exception {
+        SolverPortfolio solverPortfolio = new SolverPortfolio(true, 3);
+        try {
+            assertTrue(checkGolden(day -> LoadHarness.newService(day, 0, solverPortfolio)) > 0);
+        } finally {
+            solverPortfolio.shutdown();
+        }
+    }
+
+    //the selector's speed estimates leave only the subset DP, three subsets per parallel block
+    @Test
+    void heldKarpMatchesGoldenDistances() throws Exception {
+        checkHeldKarp(4096);
+    }
+
+    //no memory for the hot layers, every layer is mapped from its file
+    @Test
+    void heldKarpMappedLayersMatchGoldenDistances() throws Exception {
+        checkHeldKarp(0);
+    }
+
+    //solver instances share no mutable state, every instance is solved on its own thread at once
+    @Test
+    void concurrentSolvesMatchGoldenDistances() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(pool.submit(() -> checkGolden(LoadHarness::newService)));
+            }
+            for (Future<Integer> future : futures) {
+                assertTrue(future.get() > 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void checkHeldKarp(long memoryLimitMb) throws Exception {
+        AtomicInteger solves = new AtomicInteger();
+        HeldKarpCoordinator heldKarpCoordinator = new HeldKarpCoordinator(true, memoryLimitMb, 65536
+                , System.getProperty("java.io.tmpdir") + "/tsp-held-karp", 150000000, 3) {
+            @Override
+            public int[] solve(ProblemInstance instance, TimeWindowPruning pruning, SolveBudget solveBudget) {
+                solves.incrementAndGet();
+                return super.solve(instance, pruning, solveBudget);
+            }
+        };
+        SolverPortfolio solverPortfolio = new SolverPortfolio(false, 0);
+        int checked = checkGolden(day -> LoadHarness.newService(day, 0, solverPortfolio, heldKarpCoordinator, 1e-9, 1e-9)
+                , true);
+        assertTrue(checked > 0);
+        assertEquals(checked, solves.get());
+    }
+
+    private int checkGolden(Function<SyntheticInstance, DeliveryPointService> newService) throws Exception {
+        return checkGolden(newService, false);
+    }
+
+    //heldKarp: where the Held-Karp route is late the repaired route only has to lie
+    //between the lower bound and the golden distance, elsewhere it is proven and equal
+    private int checkGolden(Function<SyntheticInstance, DeliveryPointService> newService
+            , boolean heldKarp) throws Exception {
+        int checked = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/harness/golden.csv"), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                SyntheticInstanceGenerator generator = new SyntheticInstanceGenerator(
+                        Integer.parseInt(columns[0])
+                        , Double.parseDouble(columns[1])
+                        , Integer.parseInt(columns[2])
+                        , Integer.parseInt(columns[3]));
+                SyntheticInstance day = generator.generate(Long.parseLong(columns[4]));
+
+                RouteResult routeResult = newService.apply(day)
+                        .solve(day.getCourierDto(), SolveBudget.unlimited());
+                int golden = Integer.parseInt(columns[5]);
+                if (!heldKarp || Boolean.parseBoolean(columns[6])) {
+                    assertTrue(!heldKarp || routeResult.isProven(), day.getName());
+                    assertEquals(golden, routeResult.getMinDistance(), day.getName());
+                } else {
+                    assertTrue(routeResult.getMinDistance() >= golden, day.getName());
+                    assertTrue(routeResult.getLowerBound() <= golden, day.getName());
+                }
+                checked++;
+            }
+        }
+        return checked;
+    }
+}
@@ -0,0 +1,79 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.repository.DeliveryPointRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+//stands in for the MySQL backed repository in the harness and tests
+public class InMemoryDeliveryPointRepository implements DeliveryPointRepository {
+
+    private final Map<Integer, DeliveryPoint> deliveryPoints = new LinkedHashMap<>();
+
+    public InMemoryDeliveryPointRepository(List<DeliveryPoint> deliveryPoints) {
+        deliveryPoints.forEach(this::save);
+    }
+
+    @Override
+    public synchronized <S extends DeliveryPoint> S save(S deliveryPoint) {
+        deliveryPoints.put(deliveryPoint.getId(), deliveryPoint);
+        return deliveryPoint;
+    }
+
+    @Override
+    public <S extends DeliveryPoint> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public synchronized Optional<DeliveryPoint> findById(Integer id) {
+        return Optional.ofNullable(deliveryPoints.get(id));
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public synchronized Iterable<DeliveryPoint> findAll() {
+        return new ArrayList<>(deliveryPoints.values());
+    }
+
+    @Override
+    public Iterable<DeliveryPoint> findAllById(Iterable<Integer> ids) {
+        List<DeliveryPoint> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public synchronized long count() {
+        return deliveryPoints.size();
+    }
+
+    @Override
+    public synchronized void deleteById(Integer id) {
+        deliveryPoints.remove(id);
+    }
+
+    @Override
+    public void delete(DeliveryPoint deliveryPoint) {
+        deleteById(deliveryPoint.getId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends DeliveryPoint> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        deliveryPoints.clear();
+    }
+}
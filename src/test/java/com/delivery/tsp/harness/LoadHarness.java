@@ -0,0 +1,170 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.service.DeliveryPointService;
+import com.delivery.tsp.service.impl.DeliveryPointServiceImpl;
+import com.delivery.tsp.service.impl.DistanceTable;
+import com.delivery.tsp.service.impl.HeldKarpCoordinator;
+import com.delivery.tsp.service.impl.PartitionedSolveCoordinator;
+import com.delivery.tsp.service.impl.RouteHistory;
+import com.delivery.tsp.service.impl.RouteResultCache;
+import com.delivery.tsp.service.impl.SolverPortfolio;
+import com.delivery.tsp.service.impl.SolverSelector;
+import com.delivery.tsp.utils.HaversineDistanceProvider;
+import com.delivery.tsp.utils.SolveBudget;
+import com.delivery.tsp.utils.SpeedProfile;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//drives DeliveryPointService.getMinPath end to end on synthetic days.
+//
+//  java -cp <test classpath> com.delivery.tsp.harness.LoadHarness \
+//      --points=8 --spread=10 --window=60 --speed=30 --instances=20 \
+//      --requests=200 --concurrency=4 --seed=1 --time-limit-ms=0 --out=target/harness
+//
+//The route cache is disabled so every request pays for a full solve.
+//Every request of an instance must return the same route text, otherwise
+//the run counts a mismatch
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int points = Integer.parseInt(options.getOrDefault("points", "8"));
+        double spread = Double.parseDouble(options.getOrDefault("spread", "10"));
+        int window = Integer.parseInt(options.getOrDefault("window", "60"));
+        int speed = Integer.parseInt(options.getOrDefault("speed", "30"));
+        int instances = Integer.parseInt(options.getOrDefault("instances", "20"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "200"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        long timeLimitMs = Long.parseLong(options.getOrDefault("time-limit-ms", "0"));
+        String out = options.get("out");
+
+        SyntheticInstanceGenerator generator = new SyntheticInstanceGenerator(points, spread, window, speed);
+        List<SyntheticInstance> days = new ArrayList<>();
+        List<DeliveryPointService> services = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            SyntheticInstance day = generator.generate(seed + i);
+            days.add(day);
+            services.add(newService(day));
+            if (out != null) {
+                SyntheticInstanceGenerator.write(day, Paths.get(out));
+            }
+        }
+
+        long[] latencies = new long[requests];
+        String[] routes = new String[instances];
+        AtomicInteger mismatches = new AtomicInteger();
+        AtomicInteger unproven = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < requests; r++) {
+            final int request = r;
+            futures.add(pool.submit(() -> {
+                int day = request % instances;
+                CourierDto courierDto = days.get(day).getCourierDto();
+                long begin = System.nanoTime();
+                String route = services.get(day).getMinPath(courierDto, SolveBudget.ofMillis(timeLimitMs));
+                latencies[request] = System.nanoTime() - begin;
+
+                if (route.contains("optimality not proven")) {
+                    unproven.incrementAndGet();
+                }
+                synchronized (routes) {
+                    if (routes[day] == null) {
+                        routes[day] = route;
+                    } else if (!routes[day].equals(route)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("instances=%d points=%d spread=%.0fkm window=%dmin speed=%dkm/h concurrency=%d%n"
+                , instances, points, spread, window, speed, concurrency);
+        System.out.printf("requests=%d throughput=%.1f req/s%n"
+                , requests, requests / (elapsed / 1e9));
+        System.out.printf("latency p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n"
+                , millis(percentile(latencies, 0.50))
+                , millis(percentile(latencies, 0.95))
+                , millis(percentile(latencies, 0.99))
+                , millis(latencies[latencies.length - 1]));
+        System.out.printf("route mismatches=%d unproven=%d%n", mismatches.get(), unproven.get());
+    }
+
+    static DeliveryPointService newService(SyntheticInstance day) {
+        return newService(day, 0);
+    }
+
+    static DeliveryPointService newService(SyntheticInstance day, int maxDisplacement) {
+        return newService(day, maxDisplacement, new SolverPortfolio(false, 0));
+    }
+
+    static DeliveryPointService newService(SyntheticInstance day
+            , int maxDisplacement
+            , SolverPortfolio solverPortfolio) {
+        HeldKarpCoordinator heldKarpCoordinator = new HeldKarpCoordinator(true, 4096, 65536
+                , System.getProperty("java.io.tmpdir") + "/tsp-held-karp", 150000000, 4096);
+        return newService(day, maxDisplacement, solverPortfolio, heldKarpCoordinator, 2000000, 5000000);
+    }
+
+    //routes / labels per second are the selector's speed estimates, tiny values
+    //make the exhaustive search and the window order DP look too slow
+    static DeliveryPointService newService(SyntheticInstance day
+            , int maxDisplacement
+            , SolverPortfolio solverPortfolio
+            , HeldKarpCoordinator heldKarpCoordinator
+            , double routesPerSecond
+            , double labelsPerSecond) {
+        PartitionedSolveCoordinator partitionedSolveCoordinator = new PartitionedSolveCoordinator(0, 0, "", 0);
+        return new DeliveryPointServiceImpl(new InMemoryDeliveryPointRepository(day.getDeliveryPoints())
+                , new RouteResultCache(0, 0)
+                , new HaversineDistanceProvider()
+                , new DistanceTable(null, new HaversineDistanceProvider(), false)
+                , partitionedSolveCoordinator
+                , solverPortfolio
+                , new RouteHistory(null, false, 0, 0, 0)
+                , new SolverSelector(solverPortfolio, partitionedSolveCoordinator, heldKarpCoordinator
+                        , true, true, 600, routesPerSecond, labelsPerSecond)
+                , heldKarpCoordinator
+                , SpeedProfile.constant()
+                , maxDisplacement);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
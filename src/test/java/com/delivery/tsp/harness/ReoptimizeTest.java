@@ -0,0 +1,38 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.dto.RouteResult;
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.service.DeliveryPointService;
+import com.delivery.tsp.utils.SolveBudget;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// reoptimize with points that are already part of the solved route
+class ReoptimizeTest {
+
+    @Test
+    void addedPointAlreadyInRouteIsVisitedOnce() {
+        SyntheticInstance day = new SyntheticInstanceGenerator(8, 10, 600, 60).generate(3);
+        DeliveryPointService service = LoadHarness.newService(day);
+        RouteResult solved = service.solve(day.getCourierDto(), SolveBudget.unlimited());
+        assertNotNull(solved.getRoute());
+
+        DeliveryPoint routed = day.getDeliveryPoints().get(2);
+        RouteResult reoptimized = service.reoptimize(day.getCourierDto(), solved.getRoute()
+                , Arrays.asList(routed, routed), Collections.emptyList(), SolveBudget.unlimited());
+
+        assertArrayEquals(sorted(solved.getRoute()), sorted(reoptimized.getRoute()));
+    }
+
+    private static int[] sorted(int[] route) {
+        int[] copy = route.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,37 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.CourierJson;
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.utils.CourierConverter;
+
+import java.util.List;
+
+public class SyntheticInstance {
+
+    private final String name;
+    private final CourierJson courierJson;
+    private final List<DeliveryPoint> deliveryPoints;
+
+    public SyntheticInstance(String name, CourierJson courierJson, List<DeliveryPoint> deliveryPoints) {
+        this.name = name;
+        this.courierJson = courierJson;
+        this.deliveryPoints = deliveryPoints;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CourierJson getCourierJson() {
+        return courierJson;
+    }
+
+    public CourierDto getCourierDto() {
+        return CourierConverter.convertCourierJsonToCourierDto(courierJson);
+    }
+
+    public List<DeliveryPoint> getDeliveryPoints() {
+        return deliveryPoints;
+    }
+}
@@ -0,0 +1,121 @@
+package com.delivery.tsp.harness;
+
+import com.delivery.tsp.dto.CourierJson;
+import com.delivery.tsp.model.DeliveryPoint;
+import com.delivery.tsp.utils.Distance;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+//reproducible delivery days: same parameters and seed, same instance.
+//Windows are placed around the arrival times of a hidden random route,
+//so every generated day has at least one feasible route
+public class SyntheticInstanceGenerator {
+
+    private static final double CENTER_LATITUDE = 50.4501;
+    private static final double CENTER_LONGITUDE = 30.5234;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int KILOMETER_TO_METER = 1000;
+    private static final double KM_HOUR_TO_M_SEC = 3.6;
+    private static final LocalTime BEGIN_WORK_DAY = LocalTime.of(8, 0);
+    private static final LocalTime END_WORK_DAY = LocalTime.of(23, 0);
+
+    private final int pointCount;
+    private final double spreadKm;
+    private final int windowMinutes;
+    private final int speed;
+
+    public SyntheticInstanceGenerator(int pointCount, double spreadKm, int windowMinutes, int speed) {
+        this.pointCount = pointCount;
+        this.spreadKm = spreadKm;
+        this.windowMinutes = windowMinutes;
+        this.speed = speed;
+    }
+
+    public SyntheticInstance generate(long seed) {
+        Random random = new Random(seed);
+
+        double depotLatitude = CENTER_LATITUDE + offsetDegrees(random, 0.2 * spreadKm);
+        double depotLongitude = CENTER_LONGITUDE
+                + offsetDegrees(random, 0.2 * spreadKm) / Math.cos(Math.toRadians(CENTER_LATITUDE));
+
+        double[] latitudes = new double[pointCount];
+        double[] longitudes = new double[pointCount];
+        int[] spendTime = new int[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            latitudes[i] = CENTER_LATITUDE + offsetDegrees(random, spreadKm);
+            longitudes[i] = CENTER_LONGITUDE
+                    + offsetDegrees(random, spreadKm) / Math.cos(Math.toRadians(CENTER_LATITUDE));
+            spendTime[i] = 5 + random.nextInt(16);
+        }
+
+        List<Integer> hiddenRoute = new ArrayList<>();
+        for (int i = 0; i < pointCount; i++) {
+            hiddenRoute.add(i);
+        }
+        Collections.shuffle(hiddenRoute, random);
+
+        //same arithmetic as RouteEvaluator, without waiting
+        LocalTime[] deliveryFrom = new LocalTime[pointCount];
+        LocalTime[] deliveryTo = new LocalTime[pointCount];
+        int totalTime = 0;
+        double fromLatitude = depotLatitude;
+        double fromLongitude = depotLongitude;
+        for (int point : hiddenRoute) {
+            int mesure = Distance.distFrom(fromLatitude, fromLongitude, latitudes[point], longitudes[point]);
+            totalTime += (mesure * KILOMETER_TO_METER) / (speed / KM_HOUR_TO_M_SEC);
+            int arrival = BEGIN_WORK_DAY.toSecondOfDay() + totalTime;
+            int windowSeconds = windowMinutes * 60;
+            int from = Math.max(BEGIN_WORK_DAY.toSecondOfDay(), arrival - random.nextInt(windowSeconds + 1));
+            int to = Math.min(END_WORK_DAY.toSecondOfDay(), from + windowSeconds);
+            deliveryFrom[point] = LocalTime.ofSecondOfDay(from);
+            deliveryTo[point] = LocalTime.ofSecondOfDay(Math.max(to, arrival));
+            totalTime += spendTime[point] * 60;
+            fromLatitude = latitudes[point];
+            fromLongitude = longitudes[point];
+        }
+
+        List<DeliveryPoint> deliveryPoints = new ArrayList<>();
+        for (int i = 0; i < pointCount; i++) {
+            deliveryPoints.add(new DeliveryPoint(i + 1, latitudes[i], longitudes[i], deliveryFrom[i], deliveryTo[i]));
+        }
+
+        CourierJson courierJson = new CourierJson(BEGIN_WORK_DAY + ":00"
+                , END_WORK_DAY + ":00"
+                , spendTime
+                , speed
+                , depotLatitude
+                , depotLongitude);
+        return new SyntheticInstance(name(seed), courierJson, deliveryPoints);
+    }
+
+    //<name>-points.json (DeliveryPoint list) and <name>-courier.json (CourierJson)
+    public static void write(SyntheticInstance instance, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(directory.resolve(instance.getName() + "-points.json").toFile()
+                , instance.getDeliveryPoints());
+        mapper.writeValue(directory.resolve(instance.getName() + "-courier.json").toFile()
+                , instance.getCourierJson());
+    }
+
+    private String name(long seed) {
+        return "day-n" + pointCount + "-s" + (int) spreadKm + "-w" + windowMinutes + "-v" + speed + "-seed" + seed;
+    }
+
+    private static double offsetDegrees(Random random, double km) {
+        return (random.nextDouble() * 2 - 1) * km / KM_PER_DEGREE;
+    }
+}
@@ -0,0 +1,62 @@
+package com.delivery.tsp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the error margin is empirical, haversine has to stay inside it on random city-sized pairs
+class ApproximateDistanceTest {
+
+    private static final int PAIRS = 200000;
+    //latitudes of the reference, degrees off it a pair may lie, degrees of longitude between the two
+    private static final double MAX_REFERENCE_LATITUDE = 70;
+    private static final double MAX_LATITUDE_OFFSET = 0.5;
+    private static final double MAX_LONGITUDE_SPAN = 1;
+
+    @Test
+    void haversineStaysWithinErrorMargin() {
+        Random random = new Random(33);
+        double largestShare = 0;
+        for (int pair = 0; pair < PAIRS; pair++) {
+            double reference = (random.nextDouble() * 2 - 1) * MAX_REFERENCE_LATITUDE;
+            double offset = random.nextDouble() * MAX_LATITUDE_OFFSET;
+            double lat1 = reference + (random.nextDouble() * 2 - 1) * offset;
+            double lat2 = reference + (random.nextDouble() * 2 - 1) * offset;
+            double lng1 = random.nextDouble() * 360 - 180;
+            double lng2 = wrap(lng1 + (random.nextDouble() * 2 - 1) * MAX_LONGITUDE_SPAN);
+
+            largestShare = Math.max(largestShare, check(new ApproximateDistance(reference, offset), lat1, lng1, lat2, lng2));
+        }
+        assertTrue(largestShare <= 1, "largest error / margin " + largestShare);
+    }
+
+    //two points a few km apart on either side of the 180th meridian
+    @Test
+    void pairAcrossTheDateLineIsClose() {
+        ApproximateDistance approximateDistance = ApproximateDistance.around(-17.70, -17.75);
+        double share = check(approximateDistance, -17.70, 179.98, -17.75, -179.97);
+        assertTrue(share <= 1, "error / margin " + share);
+        assertTrue(approximateDistance.meters(-17.70, 179.98, -17.75, -179.97) < 10000);
+    }
+
+    //error as a share of the margin, the km range has to hold Distance.distFrom
+    private static double check(ApproximateDistance approximateDistance
+            , double lat1
+            , double lng1
+            , double lat2
+            , double lng2) {
+        double exact = Distance.metersFrom(lat1, lng1, lat2, lng2);
+        double approximate = approximateDistance.meters(lat1, lng1, lat2, lng2);
+        int[] range = approximateDistance.kilometerRange(lat1, lng1, lat2, lng2);
+        int kilometers = Distance.distFrom(lat1, lng1, lat2, lng2);
+        String name = lat1 + "," + lng1 + " -> " + lat2 + "," + lng2;
+        assertTrue(range[0] <= kilometers && kilometers <= range[1], name);
+        return Math.abs(exact - approximate) / approximateDistance.errorMargin(approximate);
+    }
+
+    private static double wrap(double longitude) {
+        return longitude >= 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+    }
+}
@@ -0,0 +1,103 @@
+package com.delivery.tsp.utils;
+
+import com.delivery.tsp.dto.CourierDto;
+import com.delivery.tsp.dto.RouteSchedule;
+import com.delivery.tsp.harness.SyntheticInstance;
+import com.delivery.tsp.harness.SyntheticInstanceGenerator;
+import com.delivery.tsp.model.DeliveryPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// improve() decides on its constant time segments, RouteEvaluator simulates the day:
+// an improved route must never be worse for RouteEvaluator than the one it started from
+class TimeWindowLocalSearchTest {
+
+    //points, spreadKm, windowMinutes, speed: tight windows make most random orders late
+    private static final int[][] DAYS = {
+            {5, 5, 30, 20},
+            {8, 10, 60, 30},
+            {9, 5, 45, 20},
+            {12, 10, 90, 30},
+            {15, 20, 600, 60}
+    };
+    private static final int ORDERS_PER_DAY = 200;
+
+    @Test
+    void improveIsNeverWorseForRouteEvaluator() {
+        Random random = new Random(44);
+        int repaired = 0;
+        int shortened = 0;
+        for (int[] parameters : DAYS) {
+            for (long seed = 1; seed <= 4; seed++) {
+                SyntheticInstance day = new SyntheticInstanceGenerator(
+                        parameters[0], parameters[1], parameters[2], parameters[3]).generate(seed);
+                ProblemInstance instance = compile(day);
+                RouteEvaluator routeEvaluator = new RouteEvaluator(instance);
+                TimeWindowLocalSearch localSearch = new TimeWindowLocalSearch(instance);
+
+                int n = parameters[0];
+                int[] route = new int[n];
+                for (int i = 0; i < n; i++) {
+                    route[i] = i + 1;
+                }
+                for (int order = 0; order < ORDERS_PER_DAY; order++) {
+                    shuffle(route, random);
+                    int[] improved = localSearch.improve(route, SolveBudget.unlimited());
+                    RouteSchedule before = routeEvaluator.evaluate(route);
+                    RouteSchedule after = routeEvaluator.evaluate(improved);
+
+                    String name = day.getName() + " " + Arrays.toString(route);
+                    assertArrayEquals(sorted(route), sorted(improved), name);
+                    if (before.isFeasible()) {
+                        assertTrue(after.isFeasible(), name);
+                        assertTrue(after.getDistance() <= before.getDistance(), name);
+                        if (after.getDistance() < before.getDistance()) {
+                            shortened++;
+                        }
+                    } else if (after.isFeasible()) {
+                        repaired++;
+                    }
+                }
+            }
+        }
+        //late orders were repaired and on-time orders shortened
+        assertTrue(repaired > 0);
+        assertTrue(shortened > 0);
+    }
+
+    private static ProblemInstance compile(SyntheticInstance day) {
+        CourierDto courierDto = day.getCourierDto();
+        List<DeliveryPoint> deliveryPoints = day.getDeliveryPoints();
+        double[] latitudes = new double[deliveryPoints.size() + 1];
+        double[] longitudes = new double[deliveryPoints.size() + 1];
+        latitudes[0] = courierDto.getLotitude();
+        longitudes[0] = courierDto.getLongitude();
+        for (int i = 0; i < deliveryPoints.size(); i++) {
+            latitudes[i + 1] = deliveryPoints.get(i).getLatitude();
+            longitudes[i + 1] = deliveryPoints.get(i).getLongitude();
+        }
+        int[][] graph = new HaversineDistanceProvider().matrix(latitudes, longitudes);
+        return ProblemInstance.compile(courierDto, deliveryPoints, graph, SpeedProfile.constant());
+    }
+
+    private static int[] sorted(int[] route) {
+        int[] copy = route.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static void shuffle(int[] route, Random random) {
+        for (int i = route.length - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            int temp = route[i];
+            route[i] = route[k];
+            route[k] = temp;
+        }
+    }
+}